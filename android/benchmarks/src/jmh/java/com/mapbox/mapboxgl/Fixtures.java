@@ -0,0 +1,121 @@
+package com.mapbox.mapboxgl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded payloads shaped like the ones the plugin gets from Dart, so runs are comparable.
+ */
+final class Fixtures {
+
+    /** Vertices of a route, about the size of a turn-by-turn city route. */
+    static final int ROUTE_VERTICES = 1000;
+    /** Markers in one batch update. */
+    static final int BATCH_MARKERS = 1000;
+
+    private static final double CENTER_LAT = 52.52;
+    private static final double CENTER_LNG = 13.405;
+
+    private Fixtures() {
+    }
+
+    /**
+     * A random walk of {@code size} vertices a few tens of meters apart, as lats then lngs.
+     */
+    static double[][] route(int size, long seed) {
+        final Random random = new Random(seed);
+        final double[] lats = new double[size];
+        final double[] lngs = new double[size];
+        double lat = CENTER_LAT;
+        double lng = CENTER_LNG;
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < size; i++) {
+            lats[i] = lat;
+            lngs[i] = lng;
+            heading += (random.nextDouble() - 0.5) * 0.6;
+            final double step = 0.0002 + random.nextDouble() * 0.0004;
+            lat += Math.cos(heading) * step;
+            lng += Math.sin(heading) * step;
+        }
+        return new double[][] {lats, lngs};
+    }
+
+    /**
+     * Latitude, longitude, epoch millis and heading per fix, one fix a second.
+     */
+    static double[] trajectory(int size, long seed) {
+        final double[][] route = route(size, seed);
+        final Random random = new Random(seed);
+        final double[] packed = new double[size * Trajectory.STRIDE];
+        for (int i = 0; i < size; i++) {
+            packed[i * Trajectory.STRIDE] = route[0][i];
+            packed[i * Trajectory.STRIDE + 1] = route[1][i];
+            packed[i * Trajectory.STRIDE + 2] = i * 1000L;
+            packed[i * Trajectory.STRIDE + 3] = random.nextInt(4) == 0 ? Double.NaN : random.nextDouble() * 360;
+        }
+        return packed;
+    }
+
+    /**
+     * Longitude and latitude of points spread over a city, interleaved.
+     */
+    static double[] lngLats(int size, long seed) {
+        final Random random = new Random(seed);
+        final double[] lngLats = new double[size * 2];
+        for (int i = 0; i < size; i++) {
+            lngLats[2 * i] = CENTER_LNG + (random.nextDouble() - 0.5) * 0.4;
+            lngLats[2 * i + 1] = CENTER_LAT + (random.nextDouble() - 0.5) * 0.25;
+        }
+        return lngLats;
+    }
+
+    static List<String> ids(int size) {
+        final List<String> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add("marker-" + i);
+        }
+        return ids;
+    }
+
+    /**
+     * The values of a packed payload as the list of boxed doubles the standard codec decodes a
+     * List&lt;double&gt; into.
+     */
+    static List<Object> boxed(double[] values) {
+        final List<Object> boxed = new ArrayList<>(values.length);
+        for (double value : values) {
+            boxed.add(value);
+        }
+        return boxed;
+    }
+
+    /**
+     * Encodes coordinates as a Google encoded polyline with the given precision.
+     */
+    static String encodePolyline(double[] lats, double[] lngs, int precision) {
+        final double factor = Math.pow(10, precision);
+        final StringBuilder builder = new StringBuilder(lats.length * 8);
+        long lastLat = 0;
+        long lastLng = 0;
+        for (int i = 0; i < lats.length; i++) {
+            final long lat = Math.round(lats[i] * factor);
+            final long lng = Math.round(lngs[i] * factor);
+            encodeValue(builder, lat - lastLat);
+            encodeValue(builder, lng - lastLng);
+            lastLat = lat;
+            lastLng = lng;
+        }
+        return builder.toString();
+    }
+
+    private static void encodeValue(StringBuilder builder, long value) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            builder.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        builder.append((char) (v + 63));
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.mapbox.mapboxgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line geometry of 1k vertices as it reaches and leaves the Java side: as the nested lists of
+ * boxed doubles the standard codec produces for List&lt;List&lt;double&gt;&gt;, and as the
+ * double[] of a packed Float64List.
+ *
+ * Reading decodes the message with the standard codec's wire format and walks the pairs the way
+ * Convert.toLatLngList does; the LatLng allocated per vertex is the same on both paths and left
+ * out, as it needs the Mapbox SDK. Replying builds what line#getGeometry hands to the codec and
+ * encodes it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeometryPayloadBenchmark {
+
+    private double[] lats;
+    private double[] lngs;
+    private ByteBuffer packedMessage;
+    private ByteBuffer nestedMessage;
+
+    @Setup
+    public void setUp() {
+        final double[][] route = Fixtures.route(Fixtures.ROUTE_VERTICES, 6);
+        lats = route[0];
+        lngs = route[1];
+        packedMessage = message(packed());
+        nestedMessage = message(nested());
+    }
+
+    @Benchmark
+    public double readPacked() {
+        final double[] data = PackedValues.toDoubleArray(StandardCodec.decode(packedMessage.duplicate()));
+        double sum = 0;
+        for (int i = 0; i + 1 < data.length; i += 2) {
+            sum += data[i] + data[i + 1];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double readNested() {
+        final List<?> data = (List<?>) StandardCodec.decode(nestedMessage.duplicate());
+        double sum = 0;
+        for (int i = 0; i < data.size(); i++) {
+            final List<?> coords = (List<?>) data.get(i);
+            sum += ((Number) coords.get(0)).doubleValue() + ((Number) coords.get(1)).doubleValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ByteBuffer replyPacked() {
+        return StandardCodec.encode(packed());
+    }
+
+    @Benchmark
+    public ByteBuffer replyNested() {
+        return StandardCodec.encode(nested());
+    }
+
+    private static ByteBuffer message(Object value) {
+        final ByteBuffer message = StandardCodec.encode(value);
+        message.flip();
+        return message;
+    }
+
+    private double[] packed() {
+        final double[] values = new double[lats.length * 2];
+        for (int i = 0; i < lats.length; i++) {
+            values[i * 2] = lats[i];
+            values[i * 2 + 1] = lngs[i];
+        }
+        return values;
+    }
+
+    private List<Object> nested() {
+        final List<Object> values = new ArrayList<>(lats.length);
+        for (int i = 0; i < lats.length; i++) {
+            final List<Object> pair = new ArrayList<>(2);
+            pair.add(lats[i]);
+            pair.add(lngs[i]);
+            values.add(pair);
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.mapbox.mapboxgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a 1k-marker batch the way custom#updateAnimatedMarkersBatch and custom#addPredictedFixes
+ * do, from the double[] a Float64List decodes to and from the boxed list a List&lt;double&gt;
+ * decodes to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadBenchmark {
+
+    private static final int STRIDE = 4;
+
+    private List<String> ids;
+    private double[] packed;
+    private List<Object> boxed;
+
+    @Setup
+    public void setUp() {
+        ids = Fixtures.ids(Fixtures.BATCH_MARKERS);
+        final double[] lngLats = Fixtures.lngLats(Fixtures.BATCH_MARKERS, 4);
+        packed = new double[Fixtures.BATCH_MARKERS * STRIDE];
+        for (int i = 0; i < Fixtures.BATCH_MARKERS; i++) {
+            packed[i * STRIDE] = lngLats[2 * i + 1];
+            packed[i * STRIDE + 1] = lngLats[2 * i];
+            packed[i * STRIDE + 2] = 1000;
+            packed[i * STRIDE + 3] = i % 360;
+        }
+        boxed = Fixtures.boxed(packed);
+    }
+
+    @Benchmark
+    public double packedBatch() {
+        return read(PackedValues.rows(ids, packed, STRIDE));
+    }
+
+    @Benchmark
+    public double boxedBatch() {
+        return read(PackedValues.rows(ids, boxed, STRIDE));
+    }
+
+    /**
+     * Reads every row as the batch handlers do, so the parse can't be skipped.
+     */
+    private static double read(double[] values) {
+        double sum = 0;
+        for (int i = 0; i < values.length; i += STRIDE) {
+            sum += values[i] + values[i + 1] + (long) values[i + 2] + values[i + 3];
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.mapbox.mapboxgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the animated marker or floating label an update names, in the id-keyed map the
+ * controller keeps and in the list it used to scan, and removing a tenth of them at once.
+ *
+ * The entries stand in for markers, which need a map view to exist; the lookups are the same.
+ * A single removal is too short to time on its own, so the removal benchmarks time a batch of
+ * them, each from its own full registry, and report the time for the whole batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RegistryBenchmark {
+
+    private static final int UPDATES = 256;
+    private static final int BATCH = 100;
+
+    private static class Entry {
+        final String id;
+        double lat;
+        double lng;
+
+        Entry(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * A full registry for every removal of a batch, built before each iteration.
+     */
+    @State(Scope.Thread)
+    public static class Filled {
+        final List<Map<String, Entry>> registries = new ArrayList<>(BATCH);
+        final List<List<Entry>> lists = new ArrayList<>(BATCH);
+        int nextRegistry;
+        int nextList;
+
+        @Setup(Level.Iteration)
+        public void fill(RegistryBenchmark benchmark) {
+            registries.clear();
+            lists.clear();
+            for (int i = 0; i < BATCH; i++) {
+                registries.add(benchmark.newRegistry());
+                lists.add(benchmark.newList());
+            }
+            nextRegistry = 0;
+            nextList = 0;
+        }
+    }
+
+    @Param({"10", "100", "1000", "10000"})
+    public int markers;
+
+    private List<String> ids;
+    private String[] updateIds;
+    private List<String> removeIds;
+    private Map<String, Entry> registry;
+    private List<Entry> list;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ids = Fixtures.ids(markers);
+        final Random random = new Random(5);
+        updateIds = new String[UPDATES];
+        for (int i = 0; i < UPDATES; i++) {
+            updateIds[i] = ids.get(random.nextInt(markers));
+        }
+        removeIds = new ArrayList<>();
+        for (int i = 0; i < markers; i += 10) {
+            removeIds.add(ids.get(i));
+        }
+        registry = newRegistry();
+        list = newList();
+    }
+
+    @Benchmark
+    public Entry updateById() {
+        final Entry entry = registry.get(nextId());
+        entry.lat++;
+        return entry;
+    }
+
+    @Benchmark
+    public Entry updateByScan() {
+        final String id = nextId();
+        for (Entry entry : list) {
+            if (entry.id.equals(id)) {
+                entry.lat++;
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(batchSize = BATCH)
+    @Measurement(batchSize = BATCH)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, Entry> removeById(Filled filled) {
+        final Map<String, Entry> registry = filled.registries.get(filled.nextRegistry++);
+        for (String id : removeIds) {
+            registry.remove(id);
+        }
+        return registry;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(batchSize = BATCH)
+    @Measurement(batchSize = BATCH)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Entry> removeByScan(Filled filled) {
+        final List<Entry> entries = filled.lists.get(filled.nextList++);
+        for (String id : removeIds) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).id.equals(id)) {
+                    entries.remove(i);
+                    break;
+                }
+            }
+        }
+        return entries;
+    }
+
+    Map<String, Entry> newRegistry() {
+        final Map<String, Entry> registry = new LinkedHashMap<>();
+        for (String id : ids) {
+            registry.put(id, new Entry(id));
+        }
+        return registry;
+    }
+
+    List<Entry> newList() {
+        final List<Entry> list = new ArrayList<>(markers);
+        for (String id : ids) {
+            list.add(new Entry(id));
+        }
+        return list;
+    }
+
+    private String nextId() {
+        return updateIds[next++ & (UPDATES - 1)];
+    }
+
+}
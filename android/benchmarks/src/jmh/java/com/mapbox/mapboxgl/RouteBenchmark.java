@@ -0,0 +1,106 @@
+package com.mapbox.mapboxgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polyline decoding, route indexing and the lookups an animated route does while it plays, on a
+ * 1k-vertex route.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RouteBenchmark {
+
+    private static final int LOOKUPS = 100;
+
+    private double[] lats;
+    private double[] lngs;
+    private String encoded;
+    private RouteIndex route;
+    private double[] distances;
+    private double[] positions;
+
+    @Setup
+    public void setUp() {
+        final double[][] coordinates = Fixtures.route(Fixtures.ROUTE_VERTICES, 1);
+        lats = coordinates[0];
+        lngs = coordinates[1];
+        encoded = Fixtures.encodePolyline(lats, lngs, 6);
+        route = new RouteIndex(lats, lngs);
+
+        distances = new double[LOOKUPS];
+        positions = new double[LOOKUPS * 2];
+        for (int i = 0; i < LOOKUPS; i++) {
+            distances[i] = route.length() * i / LOOKUPS;
+            final int vertex = i * (Fixtures.ROUTE_VERTICES - 1) / LOOKUPS;
+            // A little off the route, like a GPS fix.
+            positions[2 * i] = lats[vertex] + 0.00005;
+            positions[2 * i + 1] = lngs[vertex] - 0.00005;
+        }
+    }
+
+    @Benchmark
+    public RouteIndex decodePolyline() {
+        return PolylineDecoder.decode(encoded, 6);
+    }
+
+    @Benchmark
+    public RouteIndex buildIndex() {
+        return new RouteIndex(lats, lngs);
+    }
+
+    @Benchmark
+    public void pointAt(Blackhole blackhole) {
+        for (double distance : distances) {
+            blackhole.consume(route.pointAt(distance));
+        }
+    }
+
+    /**
+     * Following a marker, which only checks the segments near the last one.
+     */
+    @Benchmark
+    public void locateNearHint(Blackhole blackhole) {
+        int hint = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            final RouteIndex.Location location = route.locate(positions[2 * i], positions[2 * i + 1], hint, 16);
+            hint = location.segment;
+            blackhole.consume(location);
+        }
+    }
+
+    @Benchmark
+    public void locateWithoutHint(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(route.locate(positions[2 * i], positions[2 * i + 1], -1, 0));
+        }
+    }
+
+    /**
+     * The rotation an animated route gives its marker at every vertex: the segment bearing,
+     * reached the short way round from the previous rotation.
+     */
+    @Benchmark
+    public double segmentRotations() {
+        double rotation = 0;
+        for (int segment = 0; segment < route.size() - 1; segment++) {
+            rotation += RouteIndex.shortestRotation(rotation, route.bearingOf(segment));
+        }
+        return rotation;
+    }
+
+    @Benchmark
+    public String remainingLineGeoJson() {
+        return route.toGeoJson(route.length() / 3, route.length());
+    }
+
+}
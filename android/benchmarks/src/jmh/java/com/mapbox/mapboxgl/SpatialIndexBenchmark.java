@@ -0,0 +1,115 @@
+package com.mapbox.mapboxgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and querying the R-tree behind annotation hit tests, the KD-tree and the point
+ * clusterer, with a viewport about a tenth of the area the items cover.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialIndexBenchmark {
+
+    /** Half the size of an annotation box in degrees, about an icon at zoom 14. */
+    private static final double ITEM_HALF_SIZE = 0.0003;
+    private static final int CLUSTER_ZOOM = 12;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private double[] lngLats;
+    private double[] boxes;
+    private double[] xs;
+    private double[] ys;
+    private PackedRTree rTree;
+    private KdTree kdTree;
+    private PointClusterer clusterer;
+
+    private double west;
+    private double south;
+    private double east;
+    private double north;
+
+    @Setup
+    public void setUp() {
+        lngLats = Fixtures.lngLats(size, 3);
+        boxes = new double[size * 4];
+        xs = new double[size];
+        ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            final double lng = lngLats[2 * i];
+            final double lat = lngLats[2 * i + 1];
+            boxes[4 * i] = lng - ITEM_HALF_SIZE;
+            boxes[4 * i + 1] = lat - ITEM_HALF_SIZE;
+            boxes[4 * i + 2] = lng + ITEM_HALF_SIZE;
+            boxes[4 * i + 3] = lat + ITEM_HALF_SIZE;
+            xs[i] = lng;
+            ys[i] = lat;
+        }
+        rTree = new PackedRTree(boxes);
+        kdTree = new KdTree(xs, ys, size);
+        clusterer = newClusterer();
+
+        west = 13.36;
+        south = 52.50;
+        east = 13.44;
+        north = 52.55;
+    }
+
+    @Benchmark
+    public PackedRTree buildRTree() {
+        return new PackedRTree(boxes);
+    }
+
+    @Benchmark
+    public void searchRTree(Blackhole blackhole) {
+        rTree.search(west, south, east, north, blackhole::consume);
+    }
+
+    @Benchmark
+    public KdTree buildKdTree() {
+        return new KdTree(xs, ys, size);
+    }
+
+    @Benchmark
+    public void rangeKdTree(Blackhole blackhole) {
+        kdTree.range(west, south, east, north, blackhole::consume);
+    }
+
+    @Benchmark
+    public PointClusterer buildClusterer() {
+        return newClusterer();
+    }
+
+    @Benchmark
+    public void getClusters(Blackhole blackhole) {
+        clusterer.getClusters(west, south, east, north, CLUSTER_ZOOM, new PointClusterer.Visitor() {
+            @Override
+            public void visitPoint(int point, double lng, double lat) {
+                blackhole.consume(point);
+            }
+
+            @Override
+            public void visitCluster(int clusterId, int pointCount, double lng, double lat) {
+                blackhole.consume(clusterId);
+            }
+        });
+    }
+
+    private PointClusterer newClusterer() {
+        // The defaults of PointClusterSource.Options.
+        return new PointClusterer(lngLats, 0, 16, 60, 512, 2);
+    }
+
+}
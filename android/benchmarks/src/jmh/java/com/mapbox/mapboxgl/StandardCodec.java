@@ -0,0 +1,263 @@
+package com.mapbox.mapboxgl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The wire format of Flutter's StandardMessageCodec, for the values plugin payloads carry, so
+ * the benchmarks can encode and decode messages without the Flutter embedding.
+ *
+ * It writes and reads the same bytes as the embedding: little-endian values behind a type byte,
+ * variable-length sizes, and typed arrays aligned to their element size. Like the embedding it
+ * writes through a growing byte array and reads from a ByteBuffer, boxing every scalar and
+ * building an ArrayList or HashMap for every list or map.
+ */
+final class StandardCodec {
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte BYTE_ARRAY = 8;
+    private static final byte INT_ARRAY = 9;
+    private static final byte LONG_ARRAY = 10;
+    private static final byte DOUBLE_ARRAY = 11;
+    private static final byte LIST = 12;
+    private static final byte MAP = 13;
+
+    private StandardCodec() {
+    }
+
+    /**
+     * Encodes {@code message} into a direct buffer positioned after it, as the embedding hands it
+     * to the messenger.
+     */
+    static ByteBuffer encode(Object message) {
+        final Output stream = new Output();
+        writeValue(stream, message);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
+        buffer.put(stream.buffer(), 0, stream.size());
+        return buffer;
+    }
+
+    /**
+     * Decodes the message from the position of {@code message} to its limit.
+     */
+    static Object decode(ByteBuffer message) {
+        message.order(ByteOrder.LITTLE_ENDIAN);
+        final Object value = readValue(message);
+        if (message.hasRemaining()) {
+            throw new IllegalArgumentException("Message corrupted");
+        }
+        return value;
+    }
+
+    private static void writeValue(Output stream, Object value) {
+        if (value == null) {
+            stream.write(NULL);
+        } else if (value instanceof Boolean) {
+            stream.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            stream.write(INT);
+            writeInt(stream, ((Number) value).intValue());
+        } else if (value instanceof Long) {
+            stream.write(LONG);
+            writeLong(stream, (Long) value);
+        } else if (value instanceof Float || value instanceof Double) {
+            stream.write(DOUBLE);
+            writeAlignment(stream, 8);
+            writeLong(stream, Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof String) {
+            stream.write(STRING);
+            final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            writeSize(stream, bytes.length);
+            stream.write(bytes, 0, bytes.length);
+        } else if (value instanceof byte[]) {
+            stream.write(BYTE_ARRAY);
+            final byte[] bytes = (byte[]) value;
+            writeSize(stream, bytes.length);
+            stream.write(bytes, 0, bytes.length);
+        } else if (value instanceof int[]) {
+            stream.write(INT_ARRAY);
+            final int[] array = (int[]) value;
+            writeSize(stream, array.length);
+            writeAlignment(stream, 4);
+            for (int n : array) {
+                writeInt(stream, n);
+            }
+        } else if (value instanceof long[]) {
+            stream.write(LONG_ARRAY);
+            final long[] array = (long[]) value;
+            writeSize(stream, array.length);
+            writeAlignment(stream, 8);
+            for (long n : array) {
+                writeLong(stream, n);
+            }
+        } else if (value instanceof double[]) {
+            stream.write(DOUBLE_ARRAY);
+            final double[] array = (double[]) value;
+            writeSize(stream, array.length);
+            writeAlignment(stream, 8);
+            for (double d : array) {
+                writeLong(stream, Double.doubleToLongBits(d));
+            }
+        } else if (value instanceof List) {
+            stream.write(LIST);
+            final List<?> list = (List<?>) value;
+            writeSize(stream, list.size());
+            for (Object element : list) {
+                writeValue(stream, element);
+            }
+        } else if (value instanceof Map) {
+            stream.write(MAP);
+            final Map<?, ?> map = (Map<?, ?>) value;
+            writeSize(stream, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(stream, entry.getKey());
+                writeValue(stream, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value: " + value.getClass());
+        }
+    }
+
+    private static void writeSize(Output stream, int size) {
+        if (size < 254) {
+            stream.write(size);
+        } else if (size <= 0xffff) {
+            stream.write(254);
+            stream.write(size);
+            stream.write(size >>> 8);
+        } else {
+            stream.write(255);
+            writeInt(stream, size);
+        }
+    }
+
+    private static void writeInt(Output stream, int value) {
+        stream.write(value);
+        stream.write(value >>> 8);
+        stream.write(value >>> 16);
+        stream.write(value >>> 24);
+    }
+
+    private static void writeLong(Output stream, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            stream.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeAlignment(Output stream, int alignment) {
+        final int mod = stream.size() % alignment;
+        if (mod != 0) {
+            for (int i = 0; i < alignment - mod; i++) {
+                stream.write(0);
+            }
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        final byte type = buffer.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case TRUE:
+                return true;
+            case FALSE:
+                return false;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case DOUBLE:
+                readAlignment(buffer, 8);
+                return buffer.getDouble();
+            case STRING: {
+                final byte[] bytes = readBytes(buffer);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            case BYTE_ARRAY:
+                return readBytes(buffer);
+            case INT_ARRAY: {
+                final int[] array = new int[readSize(buffer)];
+                readAlignment(buffer, 4);
+                buffer.asIntBuffer().get(array);
+                buffer.position(buffer.position() + 4 * array.length);
+                return array;
+            }
+            case LONG_ARRAY: {
+                final long[] array = new long[readSize(buffer)];
+                readAlignment(buffer, 8);
+                buffer.asLongBuffer().get(array);
+                buffer.position(buffer.position() + 8 * array.length);
+                return array;
+            }
+            case DOUBLE_ARRAY: {
+                final double[] array = new double[readSize(buffer)];
+                readAlignment(buffer, 8);
+                buffer.asDoubleBuffer().get(array);
+                buffer.position(buffer.position() + 8 * array.length);
+                return array;
+            }
+            case LIST: {
+                final int size = readSize(buffer);
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            }
+            case MAP: {
+                final int size = readSize(buffer);
+                final Map<Object, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(buffer), readValue(buffer));
+                }
+                return map;
+            }
+            default:
+                throw new IllegalArgumentException("Message corrupted");
+        }
+    }
+
+    private static int readSize(ByteBuffer buffer) {
+        final int value = buffer.get() & 0xff;
+        if (value < 254) {
+            return value;
+        } else if (value == 254) {
+            return buffer.getChar();
+        } else {
+            return buffer.getInt();
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        final byte[] bytes = new byte[readSize(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void readAlignment(ByteBuffer buffer, int alignment) {
+        final int mod = buffer.position() % alignment;
+        if (mod != 0) {
+            buffer.position(buffer.position() + alignment - mod);
+        }
+    }
+
+    /** A ByteArrayOutputStream that hands out its buffer instead of copying it. */
+    private static class Output extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.mapbox.mapboxgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a 1k-fix trajectory and sampling it, both frame by frame as a playing marker does and
+ * at random times as a seek does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrajectoryBenchmark {
+
+    private static final int FIXES = 1000;
+    private static final int SAMPLES = 1000;
+    private static final long FRAME_MILLIS = 16;
+
+    private double[] packed;
+    private Trajectory trajectory;
+    private long[] randomTimes;
+    private final double[] out = new double[3];
+
+    @Setup
+    public void setUp() {
+        packed = Fixtures.trajectory(FIXES, 2);
+        trajectory = new Trajectory(packed, 0);
+        final Random random = new Random(2);
+        randomTimes = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            randomTimes[i] = (long) (random.nextDouble() * FIXES * 1000);
+        }
+    }
+
+    @Benchmark
+    public Trajectory build() {
+        return new Trajectory(packed, 0);
+    }
+
+    @Benchmark
+    public void samplePerFrame(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            trajectory.sample(i * FRAME_MILLIS, out);
+            blackhole.consume(out[2]);
+        }
+    }
+
+    @Benchmark
+    public void sampleRandom(Blackhole blackhole) {
+        for (long time : randomTimes) {
+            trajectory.sample(time, out);
+            blackhole.consume(out[2]);
+        }
+    }
+
+}
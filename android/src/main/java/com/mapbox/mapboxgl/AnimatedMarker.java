@@ -1,15 +1,5 @@
 package com.mapbox.mapboxgl;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.TypeEvaluator;
-import android.animation.ValueAnimator;
-import android.os.Handler;
-import android.os.SystemClock;
-import android.util.Log;
-import android.view.animation.AccelerateDecelerateInterpolator;
-import android.view.animation.LinearInterpolator;
-
 import com.mapbox.geojson.Point;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.Style;
@@ -29,33 +19,66 @@ import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconSize;
 
 public class AnimatedMarker {
 
+    private static final long BEARING_SMOOTHING = 250;
+
     private MapboxMap mapInstance;
+    private AnimatedMarkerEngine engine;
+    private AnimatedMarkerCollection collection;
     private Point animatingMarker;
 
     private GeoJsonSource pointSource;
     public String identifier;
     private String imageName;
 
-    public Animator currentAnimator;
-    private ValueAnimator bearingValueAnimator;
-
-    private Handler handler;
-    private Runnable runnable;
-
-    private Handler rHandler;
-    private Runnable rRunnable;
+    private Point positionFrom;
+    private Point positionTo;
+    private long positionStartTime;
+    private long positionDuration;
+    private boolean positionAnimating;
+    private boolean positionChanged;
+    private OnAnimatedMarkerArrivedListener arrivedListener;
+    private OnAnimatedMarkerArrivedListener pendingArrival;
+
+    private float rotationFrom;
+    private float rotationTo;
+    private long rotationStartTime;
+    private long rotationDuration;
+    private boolean rotationAnimating;
+    private boolean rotationChanged;
+
+    private Trajectory trajectory;
+    private long sampleFrameTime;
+    private final double[] playbackSample = new double[3];
+
+    private DeadReckoning prediction;
+    private boolean predictionSettled;
 
     public float prevBearing;
 
     private Style style;
 
-    public AnimatedMarker(MapboxMap mapView) {
+    public AnimatedMarker(MapboxMap mapView, AnimatedMarkerEngine engine) {
+        this(mapView, engine, null);
+    }
+
+    /**
+     * Creates a marker rendered as a feature of the given shared collection instead of owning
+     * its own source and layer. Pass {@code null} for a standalone marker.
+     */
+    public AnimatedMarker(MapboxMap mapView, AnimatedMarkerEngine engine, AnimatedMarkerCollection collection) {
         mapInstance = mapView;
+        this.engine = engine;
+        this.collection = collection;
         identifier = UUID.randomUUID().toString();
         style = Objects.requireNonNull(mapInstance.getStyle());
     }
 
     public void create() {
+        if (collection != null) {
+            collection.add(this);
+            return;
+        }
+
         style.addSource(pointSource = new GeoJsonSource(identifier));
         style.addLayer(new SymbolLayer(identifier + "-layer", identifier).withProperties(
                 iconImage(imageName),
@@ -69,6 +92,11 @@ public class AnimatedMarker {
     public void updateIconImage(String name) {
         imageName = name;
 
+        if (collection != null) {
+            collection.invalidate();
+            return;
+        }
+
         final Layer animatedMarker = Objects.requireNonNull(mapInstance.getStyle()).getLayerAs(identifier + "-layer");
 
         if (animatedMarker != null) {
@@ -79,137 +107,230 @@ public class AnimatedMarker {
     }
 
     public void updateCoordinates(Point coordinates, long duration) {
-        updateCoordinates(coordinates, duration, new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-            }
-        });
+        updateCoordinates(coordinates, duration, null);
     }
 
-    public void updateCoordinates(Point coordinates, long duration, AnimatorListenerAdapter callback) {
-        if (currentAnimator != null) {
-            currentAnimator.removeAllListeners();
-            currentAnimator.cancel();
-        }
+    public void updateCoordinates(Point coordinates, long duration, OnAnimatedMarkerArrivedListener callback) {
+        trajectory = null;
+        prediction = null;
 
         if (animatingMarker == null) {
             animatingMarker = coordinates;
-            pointSource.setGeoJson(animatingMarker);
-        } else {
-            handler = new Handler();
-            runnable = new Runnable() {
-                @Override
-                public void run() {
-                    currentAnimator = createLatLngAnimator(animatingMarker, coordinates, duration);
-                    currentAnimator.addListener(callback);
-                    currentAnimator.start();
-                }
-            };
-            handler.post(runnable);
+            if (collection != null) {
+                collection.invalidate();
+            } else {
+                pointSource.setGeoJson(animatingMarker);
+            }
+            return;
         }
+
+        positionFrom = animatingMarker;
+        positionTo = coordinates;
+        positionDuration = duration;
+        // The start time is taken from the first frame so the marker doesn't skip ahead.
+        positionStartTime = -1;
+        positionAnimating = true;
+        arrivedListener = callback;
+        pendingArrival = null;
+
+        engine.start(this);
     }
 
     public void updateRotation(Float rotation, long duration) {
-        rHandler = new Handler();
-        rRunnable = new Runnable() {
-            @Override
-            public void run() {
-                final Layer animatedMarker = style.getLayerAs(identifier + "-layer");
-
-                if (animatedMarker == null) {
-                    return;
-                }
-
-                if (bearingValueAnimator != null) {
-                    bearingValueAnimator.removeAllUpdateListeners();
-                    bearingValueAnimator.cancel();
-                }
-
-                bearingValueAnimator = ValueAnimator.ofFloat(1);
-                bearingValueAnimator.setDuration(duration);
-                bearingValueAnimator.setInterpolator(new LinearInterpolator());
-                bearingValueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                    @Override
-                    public void onAnimationUpdate(ValueAnimator animation) {
-                        try {
-                            final float b = (rotation - prevBearing) * animation.getAnimatedFraction() + prevBearing;
-
-                            animatedMarker.setProperties(
-                                    iconRotate(b)
-                                    // iconRotate((float) animation.getAnimatedValue())
-                                    // iconRotate((currentStartRotation + animation.getAnimatedFraction() * nextRotation) % 360)
-                            );
-
-                            prevBearing = b;
-                        } catch (Exception ex) {
-                            //I don't care atm..
-                        }
-                    }
-                });
-                bearingValueAnimator.addListener(new AnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        super.onAnimationEnd(animation);
-                    }
-                });
-                bearingValueAnimator.start();
-            }
-        };
-        rHandler.post(rRunnable);
+        trajectory = null;
+        prediction = null;
+        rotationFrom = prevBearing;
+        rotationTo = rotation;
+        rotationDuration = duration;
+        rotationStartTime = -1;
+        rotationAnimating = true;
+
+        engine.start(this);
+    }
+
+    /**
+     * Replaces any running animation with playback of the trajectory against the wall clock.
+     */
+    void playTrajectory(Trajectory trajectory) {
+        this.trajectory = trajectory;
+        prediction = null;
+        sampleFrameTime = -1;
+        positionAnimating = false;
+        rotationAnimating = false;
+        arrivedListener = null;
+        pendingArrival = null;
+
+        engine.start(this);
+    }
+
+    /**
+     * Feeds a position fix, stamped with the time it was taken, to the predictive mode. Between
+     * fixes the marker keeps moving along its recent velocity, and each new fix is blended in.
+     */
+    void addFix(double lat, double lng, long time, double heading,
+                long clockOffset, long maxExtrapolation, long correctionDuration) {
+        if (prediction == null) {
+            prediction = new DeadReckoning();
+            trajectory = null;
+            positionAnimating = false;
+            rotationAnimating = false;
+            arrivedListener = null;
+            pendingArrival = null;
+            sampleFrameTime = -1;
+        }
+        prediction.configure(clockOffset, maxExtrapolation, correctionDuration);
+
+        final double[] drawn = animatingMarker != null
+                ? new double[] {animatingMarker.latitude(), animatingMarker.longitude()}
+                : null;
+        if (prediction.addFix(lat, lng, time, heading, System.currentTimeMillis(), drawn)) {
+            predictionSettled = false;
+            engine.start(this);
+        }
     }
 
     public Point currentLocation() {
         return animatingMarker;
     }
 
+    String getIconImage() {
+        return imageName;
+    }
+
     public void destroy() {
-        if (currentAnimator != null) {
-            currentAnimator.removeAllListeners();
-            currentAnimator.cancel();
+        engine.cancel(this);
+        positionAnimating = false;
+        rotationAnimating = false;
+        trajectory = null;
+        prediction = null;
+        arrivedListener = null;
+        pendingArrival = null;
+
+        if (collection != null) {
+            collection.remove(this);
+            return;
         }
 
         style.removeLayer(identifier + "-layer");
         style.removeSource(identifier);
     }
 
-    private static class PointEvaluator implements TypeEvaluator<Point> {
-        @Override
-        public Point evaluate(float fraction, Point startValue, Point endValue) {
-            return Point.fromLngLat(
-                    startValue.longitude() + ((endValue.longitude() - startValue.longitude()) * fraction),
-                    startValue.latitude() + ((endValue.latitude() - startValue.latitude()) * fraction)
-            );
-        }
+    boolean isAnimating() {
+        return positionAnimating || rotationAnimating || trajectory != null
+                || (prediction != null && !predictionSettled);
     }
 
-    private Animator createLatLngAnimator(Point currentPosition, Point targetPosition, long duration) {
-        ValueAnimator latLngAnimator = ValueAnimator.ofFloat(0, 1);
-        latLngAnimator.setDuration(duration);
-        latLngAnimator.setInterpolator(new LinearInterpolator());
-        /*latLngAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-                // animate();
+    void step(long frameTime, long wallTime) {
+        if (trajectory != null) {
+            stepTrajectory(frameTime, wallTime);
+            return;
+        }
+        if (prediction != null) {
+            stepPrediction(frameTime, wallTime);
+            return;
+        }
+
+        if (positionAnimating) {
+            if (positionStartTime < 0) {
+                positionStartTime = frameTime;
             }
-        });*/
+            final float fraction = fraction(frameTime, positionStartTime, positionDuration);
 
-        latLngAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                float fraction = (float) animation.getAnimatedValue();
+            final double lat = ((positionTo.latitude() - positionFrom.latitude()) * fraction) + positionFrom.latitude();
+            final double lng = ((positionTo.longitude() - positionFrom.longitude()) * fraction) + positionFrom.longitude();
+            animatingMarker = Point.fromLngLat(lng, lat);
+            positionChanged = true;
 
-                double lat = ((targetPosition.latitude() - currentPosition.latitude()) * fraction) + currentPosition.latitude();
-                double lng = ((targetPosition.longitude() - currentPosition.longitude()) * fraction) + currentPosition.longitude();
-                Point point = Point.fromLngLat(lng, lat);
+            if (fraction >= 1f) {
+                positionAnimating = false;
+                pendingArrival = arrivedListener;
+                arrivedListener = null;
+            }
+        }
+
+        if (rotationAnimating) {
+            if (rotationStartTime < 0) {
+                rotationStartTime = frameTime;
+            }
+            final float fraction = fraction(frameTime, rotationStartTime, rotationDuration);
+
+            prevBearing = (rotationTo - rotationFrom) * fraction + rotationFrom;
+            rotationChanged = true;
+
+            if (fraction >= 1f) {
+                rotationAnimating = false;
+            }
+        }
+    }
+
+    private void stepTrajectory(long frameTime, long wallTime) {
+        trajectory.sample(wallTime, playbackSample);
+        final boolean finished = trajectory.isFinished(wallTime);
+        applySample(frameTime, finished);
+
+        if (finished) {
+            trajectory = null;
+        }
+    }
+
+    private void stepPrediction(long frameTime, long wallTime) {
+        prediction.sample(wallTime, playbackSample);
+        predictionSettled = prediction.isSettled(wallTime);
+        applySample(frameTime, false);
+    }
 
-                pointSource.setGeoJson(point);
-                animatingMarker = point;
+    private void applySample(long frameTime, boolean snapBearing) {
+        animatingMarker = Point.fromLngLat(playbackSample[1], playbackSample[0]);
+        positionChanged = true;
+
+        final double heading = playbackSample[2];
+        if (!Double.isNaN(heading)) {
+            // Ease towards the heading instead of snapping at every fix.
+            final long elapsed = sampleFrameTime < 0 ? 0 : frameTime - sampleFrameTime;
+            final double fraction = snapBearing ? 1 : Math.min(1, elapsed / (double) BEARING_SMOOTHING);
+            prevBearing += (float) (RouteIndex.shortestRotation(prevBearing, heading) * fraction);
+            rotationChanged = true;
+        }
+        sampleFrameTime = frameTime;
+    }
+
+    void flush() {
+        if (collection != null) {
+            if (positionChanged || rotationChanged) {
+                positionChanged = false;
+                rotationChanged = false;
+                collection.invalidate();
             }
-        });
+            return;
+        }
 
-        return latLngAnimator;
+        if (positionChanged) {
+            positionChanged = false;
+            pointSource.setGeoJson(animatingMarker);
+        }
+
+        if (rotationChanged) {
+            rotationChanged = false;
+            final Layer animatedMarker = style.getLayerAs(identifier + "-layer");
+            if (animatedMarker != null) {
+                animatedMarker.setProperties(iconRotate(prevBearing));
+            }
+        }
+    }
+
+    void dispatchArrival() {
+        final OnAnimatedMarkerArrivedListener listener = pendingArrival;
+        pendingArrival = null;
+        if (listener != null) {
+            listener.onArrived(this);
+        }
+    }
+
+    private static float fraction(long frameTime, long startTime, long duration) {
+        if (duration <= 0) {
+            return 1f;
+        }
+        return Math.min(1f, (frameTime - startTime) / (float) duration);
     }
 
 }
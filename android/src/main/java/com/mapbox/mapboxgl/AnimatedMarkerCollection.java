@@ -0,0 +1,122 @@
+package com.mapbox.mapboxgl;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.maps.Style;
+import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconAllowOverlap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconIgnorePlacement;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconImage;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconOffset;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconRotate;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconSize;
+
+/**
+ * Renders pooled animated markers as features of one shared source and symbol layer.
+ *
+ * Icon image and rotation travel as feature properties, so changing them never touches the
+ * layer. The source is rewritten at most once per frame, from {@link AnimatedMarkerEngine}. When
+ * the map loads a new style the collection is attached to it and rewritten there.
+ */
+class AnimatedMarkerCollection {
+
+    private static final String SOURCE_ID = "animated-markers-source";
+    private static final String LAYER_ID = "animated-markers-layer";
+
+    static final String PROPERTY_ID = "id";
+    static final String PROPERTY_ICON = "icon";
+    static final String PROPERTY_ROTATION = "rotation";
+
+    private final AnimatedMarkerEngine engine;
+    private final Set<AnimatedMarker> markers = new LinkedHashSet<>();
+    private Style style;
+    private GeoJsonSource source;
+
+    private boolean dirty = false;
+
+    AnimatedMarkerCollection(Style style, AnimatedMarkerEngine engine) {
+        this.engine = engine;
+        attach(style);
+    }
+
+    /**
+     * Adds the source and layer to a newly loaded style and rewrites the markers into it.
+     */
+    void attach(Style style) {
+        this.style = style;
+
+        style.addSource(source = new GeoJsonSource(SOURCE_ID));
+        style.addLayer(new SymbolLayer(LAYER_ID, SOURCE_ID).withProperties(
+                iconImage(get(PROPERTY_ICON)),
+                iconRotate(get(PROPERTY_ROTATION)),
+                iconSize(1f),
+                iconOffset(new Float[] {0f, 0f}),
+                iconIgnorePlacement(true),
+                iconAllowOverlap(true)
+        ));
+        dirty = false;
+        invalidate();
+    }
+
+    void add(AnimatedMarker marker) {
+        markers.add(marker);
+        invalidate();
+    }
+
+    void remove(AnimatedMarker marker) {
+        if (markers.remove(marker)) {
+            invalidate();
+        }
+    }
+
+    void invalidate() {
+        if (!dirty) {
+            dirty = true;
+            engine.requestFrame();
+        }
+    }
+
+    void flush() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+
+        final List<Feature> features = new ArrayList<>(markers.size());
+        for (AnimatedMarker marker : markers) {
+            final Point location = marker.currentLocation();
+            if (location == null) {
+                continue;
+            }
+
+            final Feature feature = Feature.fromGeometry(location);
+            feature.addStringProperty(PROPERTY_ID, marker.identifier);
+            if (marker.getIconImage() != null) {
+                feature.addStringProperty(PROPERTY_ICON, marker.getIconImage());
+            }
+            feature.addNumberProperty(PROPERTY_ROTATION, marker.prevBearing);
+            features.add(feature);
+        }
+
+        source.setGeoJson(FeatureCollection.fromFeatures(features));
+    }
+
+    void destroy() {
+        markers.clear();
+        dirty = false;
+        if (style.isFullyLoaded()) {
+            style.removeLayer(LAYER_ID);
+            style.removeSource(SOURCE_ID);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.mapbox.mapboxgl;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steps every animating {@link AnimatedMarker} of a map from a single Choreographer frame callback.
+ *
+ * All markers are advanced first and their results pushed afterwards, so each marker touches
+ * the style at most once per frame no matter how many of its properties are animating. Pooled
+ * markers are pushed together with a single write of their shared {@link AnimatedMarkerCollection}.
+ */
+class AnimatedMarkerEngine implements Choreographer.FrameCallback {
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Set<AnimatedMarker> activeMarkers = new LinkedHashSet<>();
+    private final List<AnimatedMarker> arrivedMarkers = new ArrayList<>();
+
+    private final MainThreadWatchdog watchdog;
+
+    private AnimatedMarkerCollection collection;
+    private boolean frameScheduled = false;
+
+    AnimatedMarkerEngine(MainThreadWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    void setCollection(AnimatedMarkerCollection collection) {
+        this.collection = collection;
+    }
+
+    void requestFrame() {
+        scheduleFrame();
+    }
+
+    void start(AnimatedMarker marker) {
+        activeMarkers.add(marker);
+        scheduleFrame();
+    }
+
+    void cancel(AnimatedMarker marker) {
+        activeMarkers.remove(marker);
+    }
+
+    void dispose() {
+        activeMarkers.clear();
+        collection = null;
+        if (frameScheduled) {
+            choreographer.removeFrameCallback(this);
+            frameScheduled = false;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        final long token = watchdog.begin();
+
+        final long frameTime = TimeUnit.NANOSECONDS.toMillis(frameTimeNanos);
+        final long wallTime = System.currentTimeMillis();
+
+        for (AnimatedMarker marker : activeMarkers) {
+            marker.step(frameTime, wallTime);
+        }
+
+        for (AnimatedMarker marker : activeMarkers) {
+            marker.flush();
+        }
+        if (collection != null) {
+            collection.flush();
+        }
+
+        final Iterator<AnimatedMarker> iterator = activeMarkers.iterator();
+        while (iterator.hasNext()) {
+            final AnimatedMarker marker = iterator.next();
+            if (!marker.isAnimating()) {
+                iterator.remove();
+                arrivedMarkers.add(marker);
+            }
+        }
+
+        // Arrival listeners usually queue the next leg, which re-registers the marker.
+        for (AnimatedMarker marker : arrivedMarkers) {
+            marker.dispatchArrival();
+        }
+        arrivedMarkers.clear();
+        watchdog.end(token, "animatedMarkers#frame", null);
+
+        if (!activeMarkers.isEmpty()) {
+            scheduleFrame();
+        }
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+}
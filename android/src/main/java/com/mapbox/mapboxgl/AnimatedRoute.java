@@ -1,201 +1,147 @@
 package com.mapbox.mapboxgl;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.graphics.Color;
-
-import com.mapbox.geojson.Feature;
-import com.mapbox.geojson.LineString;
 import com.mapbox.geojson.Point;
-import com.mapbox.mapboxsdk.maps.MapboxMap;
-import com.mapbox.mapboxsdk.maps.Style;
-import com.mapbox.mapboxsdk.style.layers.LineLayer;
-import com.mapbox.mapboxsdk.style.layers.Property;
-import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
-import com.mapbox.turf.TurfMeasurement;
-import com.mapbox.turf.TurfMisc;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
-
-import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineCap;
-import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineColor;
-import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineJoin;
-import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineWidth;
 
-public class AnimatedRoute {
+import java.util.HashMap;
+import java.util.Map;
 
-    private static final String LINE_SOURCE_ID = "line-source-id";
-    private static final String TARGET_LINE_SOURCE_ID = "target-line-source-id";
-    private static final String TARGET_LINE_LAYER_ID = "target-line-layer-id";
+public class AnimatedRoute {
 
-    private MapboxMap mapInstance;
-    private Style style;
     private AnimatedMarker animatedMarker;
+    private AnimatedRouteCollection collection;
+    private RoutePreparer preparer;
 
-    private GeoJsonSource lineSource;
-    private LineString route;
-    private List<Point> routeCoordinateList;
+    private RouteIndex route;
+    private String line;
+    private String targetLine;
 
-    private GeoJsonSource targetLineSource;
-    private LineString targetRoute;
-    private List<Point> targetRouteCoordinateList;
+    private int version;
+    private boolean destroyed;
 
     private float bearingPrev = 0;
     boolean isRotating = false;
 
     private int routeIndex;
+    private double travelled;
+    private long speed;
 
-    public AnimatedRoute(MapboxMap mapView, AnimatedMarker marker) {
-        mapInstance = mapView;
-        style = Objects.requireNonNull(mapInstance.getStyle());
+    /**
+     * Creates a route followed by the marker, drawn as features of the shared collection.
+     */
+    public AnimatedRoute(AnimatedMarker marker, AnimatedRouteCollection collection, RoutePreparer preparer) {
         animatedMarker = marker;
-
-        createSources();
-        createTargetLine();
+        this.collection = collection;
+        this.preparer = preparer;
     }
 
-    private void createSources() {
-        style.addSource(lineSource = new GeoJsonSource(LINE_SOURCE_ID));
-        style.addSource(targetLineSource = new GeoJsonSource(TARGET_LINE_SOURCE_ID));
-    }
+    public void update(AnimatedRouteConfiguration conf) {
+        // The marker is already following this route.
+        if (route != null && routeIndex < route.size()
+                && conf.line.equals(line) && conf.targetLine.equals(targetLine)) {
+            return;
+        }
 
-    private void createTargetLine() {
-        style.addLayerBelow(new LineLayer(TARGET_LINE_LAYER_ID, TARGET_LINE_SOURCE_ID).withProperties(
-                lineColor(Color.parseColor("#000000")),
-                lineCap(Property.LINE_CAP_ROUND),
-                lineJoin(Property.LINE_JOIN_ROUND),
-                lineWidth(2.5f)), "road-label");
+        final int requestVersion = ++version;
+        final Point current = animatedMarker.currentLocation();
+        preparer.prepare(conf.line, conf.targetLine, current.latitude(), current.longitude(), prepared -> {
+            if (destroyed || requestVersion != version) {
+                return;
+            }
+            line = conf.line;
+            targetLine = conf.targetLine;
+            start(prepared);
+        });
     }
 
-    public void update(AnimatedRouteConfiguration conf) {
-        route = LineString.fromPolyline(conf.line, 6);
-        targetRoute = LineString.fromPolyline(conf.targetLine, 6);
+    private void start(RoutePreparer.PreparedRoute prepared) {
+        route = prepared.route;
+        travelled = prepared.start.distance;
+        routeIndex = prepared.start.segment + 1;
 
-        routeCoordinateList = route.coordinates();
-        final LineString slicedSource = animatedMarker.currentLocation().equals(routeCoordinateList.get(routeCoordinateList.size() - 1)) ?
-                route :
-                TurfMisc.lineSlice(animatedMarker.currentLocation(), routeCoordinateList.get(routeCoordinateList.size() - 1), route);
+        collection.set(animatedMarker.identifier, prepared.lineGeoJson, prepared.targetLineGeoJson);
 
-        route = slicedSource;
-        routeCoordinateList = slicedSource.coordinates();
+        final Point current = animatedMarker.currentLocation();
+        final int last = route.size() - 1;
+        final double size = RouteIndex.distance(
+                current.latitude(), current.longitude(), route.latitude(last), route.longitude(last));
 
-        if (!animatedMarker.currentLocation().equals(routeCoordinateList.get(0))) {
-            routeCoordinateList.add(0, animatedMarker.currentLocation());
+        if (size > 1000) {
+            routeIndex = route.size();
+            animatedMarker.updateCoordinates(route.point(last), 300);
+            return;
         }
 
-        targetRouteCoordinateList = targetRoute.coordinates();
-        routeIndex = 0;
+        if (size > 300) {
+            speed = 10;
+        } else if (size > 150) {
+            speed = 20;
+        } else if (size > 100) {
+            speed = 35;
+        } else if (size > 55) {
+            speed = 105;
+        } else if (size > 30) {
+            speed = 135;
+        } else {
+            speed = 160;
+        }
 
         animate();
-
-        lineSource.setGeoJson(route);
-        targetLineSource.setGeoJson(targetRoute);
     }
 
     private void animate() {
-        if (routeCoordinateList.get(0).equals(routeCoordinateList.get(routeCoordinateList.size() - 1))) {
-            final List<Point> list = new ArrayList<Point>();
-            list.add(routeCoordinateList.get(0));
-            list.add(routeCoordinateList.get(routeCoordinateList.size() - 1));
-
-            routeCoordinateList = list;
-        }
-
         // Check if we are at the end of the points list
-        if ((routeCoordinateList.size() - 1 > routeIndex)) {
-            final Point currentPosition = animatedMarker.currentLocation();
-            final Point targetPosition = routeCoordinateList.get(routeIndex + 1);
+        if (destroyed || routeIndex >= route.size()) {
+            return;
+        }
 
-            final long size = (long) TurfMeasurement.distance(routeCoordinateList.get(0), routeCoordinateList.get(routeCoordinateList.size() - 1), "meters");
+        final int target = routeIndex;
+        final long meters = (long) (route.distanceAt(target) - travelled);
+        final long duration = speed * meters;
 
-            if (size > 1000) {
-                animatedMarker.updateCoordinates(routeCoordinateList.get(routeCoordinateList.size() - 1), 300);
-                return;
-            }
+        float bearing = (float) getBearing(route.bearingOf(target - 1));
 
-            /*targetLineSource.setGeoJson(
-                    Feature.fromGeometry(
-                            TurfMisc.lineSlice(targetPosition, targetRouteCoordinateList.get(targetRouteCoordinateList.size() - 1), targetRoute)
-                    )
-            );*/
-
-            long speed;
-
-            if (size > 300) {
-                speed = 10;
-            } else if (size > 150) {
-                speed = 20;
-            } else if (size > 100) {
-                speed = 35;
-            } else if (size > 55) {
-                speed = 105;
-            } else if (size > 30) {
-                speed = 135;
-            } else {
-                speed = 160;
+        animatedMarker.updateCoordinates(route.point(target), duration, new OnAnimatedMarkerArrivedListener() {
+            @Override
+            public void onArrived(AnimatedMarker marker) {
+                travelled = route.distanceAt(target);
+                animate();
             }
+        });
 
-            long meters = (long) TurfMeasurement.distance(routeCoordinateList.get(routeIndex), targetPosition, "meters");
-            long duration = speed * meters;
-
-            // float bearing = (float) TurfMeasurement.bearing(currentPosition, targetPosition) % 360;
-            // float bearing = (float) TurfMeasurement.bearing(currentPosition, targetPosition);
-            /*if (bearing < 0) {
-                bearing += 360;
-            }*/
-
-            float bearing = (float) getBearing(currentPosition, targetPosition);
-
-            animatedMarker.updateCoordinates(targetPosition, duration, new AnimatorListenerAdapter() {
-                @Override
-                public void onAnimationEnd(Animator animation) {
-                    super.onAnimationEnd(animation);
-
-                    animate();
-                }
-            });
+        animatedMarker.updateRotation(bearing, 1000);
 
-            animatedMarker.updateRotation(bearing, 1000);
-
-            routeIndex++;
-        }
+        routeIndex++;
     }
 
-    private double getBearing(Point currentPosition, Point targetPosition) {
-        float bearing = (float) TurfMeasurement.bearing(currentPosition, targetPosition) % 360;
-        if (bearing < 0) {
-            bearing += 360;
+    /**
+     * Returns how far the marker is along the current route, located from its position near the
+     * segment it is animating on.
+     */
+    public Map<String, Object> getProgress() {
+        if (route == null) {
+            return null;
         }
+        final Map<String, Object> progress = new HashMap<>(4);
+
+        final Point current = animatedMarker.currentLocation();
+        final int hint = Math.max(0, Math.min(routeIndex - 1, route.size() - 2));
+        final RouteIndex.Location location = route.locate(current.latitude(), current.longitude(), hint, 2);
+        progress.put("distanceTravelled", location.distance);
+        progress.put("distanceRemaining", route.length() - location.distance);
+        progress.put("segmentIndex", location.segment);
+        progress.put("routeLength", route.length());
+        return progress;
+    }
 
-        float currentValue = animatedMarker.prevBearing;
-
-        float nextBearing = bearing;
-
-        if (Math.abs(bearing - animatedMarker.prevBearing) > 150) {
-            if (animatedMarker.prevBearing >= 180 && bearing < 180) {
-                currentValue = -(360 - animatedMarker.prevBearing);
-            }
-
-            if (animatedMarker.prevBearing <= 180 && bearing > 180) {
-                nextBearing = -(360 - bearing);
-            }
-        }
-
-        final float pBearing = currentValue;
-        final float nBearing = nextBearing;
-
-        animatedMarker.prevBearing = pBearing;
-
-        return nBearing;
+    private double getBearing(double segmentBearing) {
+        // Turn the short way round, whatever multiple of 360 the current rotation is at.
+        final float currentValue = animatedMarker.prevBearing;
+        return currentValue + RouteIndex.shortestRotation(currentValue, segmentBearing);
     }
 
     public void destroy() {
-        style.removeLayer(TARGET_LINE_LAYER_ID);
-        style.removeSource(LINE_SOURCE_ID);
-        style.removeSource(TARGET_LINE_SOURCE_ID);
+        destroyed = true;
+        collection.remove(animatedMarker.identifier);
     }
 
 }
@@ -0,0 +1,135 @@
+package com.mapbox.mapboxgl;
+
+import android.graphics.Color;
+import android.view.Choreographer;
+
+import com.mapbox.mapboxsdk.maps.Style;
+import com.mapbox.mapboxsdk.style.layers.LineLayer;
+import com.mapbox.mapboxsdk.style.layers.Property;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineCap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineColor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineJoin;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineWidth;
+
+/**
+ * Renders the lines of every {@link AnimatedRoute} of a map as features of two shared sources,
+ * one for the routes and one for the target lines, tagged with the id of the marker that follows
+ * them. Changes are written to the sources at most once per frame. When the map loads a new style
+ * the collection is attached to it and rewritten there.
+ */
+class AnimatedRouteCollection implements Choreographer.FrameCallback {
+
+    private static final String LINE_SOURCE_ID = "line-source-id";
+    private static final String TARGET_LINE_SOURCE_ID = "target-line-source-id";
+    private static final String TARGET_LINE_LAYER_ID = "target-line-layer-id";
+
+    static final String PROPERTY_MARKER_ID = "markerId";
+
+    private final MainThreadWatchdog watchdog;
+    private final Map<String, String> lines = new LinkedHashMap<>();
+    private final Map<String, String> targetLines = new LinkedHashMap<>();
+    private Style style;
+    private GeoJsonSource lineSource;
+    private GeoJsonSource targetLineSource;
+
+    private boolean frameScheduled = false;
+
+    AnimatedRouteCollection(Style style, MainThreadWatchdog watchdog) {
+        this.watchdog = watchdog;
+        attach(style);
+    }
+
+    /**
+     * Adds the sources and layer to a newly loaded style and rewrites the routes into it.
+     */
+    void attach(Style style) {
+        this.style = style;
+
+        style.addSource(lineSource = new GeoJsonSource(LINE_SOURCE_ID));
+        style.addSource(targetLineSource = new GeoJsonSource(TARGET_LINE_SOURCE_ID));
+        style.addLayerBelow(new LineLayer(TARGET_LINE_LAYER_ID, TARGET_LINE_SOURCE_ID).withProperties(
+                lineColor(Color.parseColor("#000000")),
+                lineCap(Property.LINE_CAP_ROUND),
+                lineJoin(Property.LINE_JOIN_ROUND),
+                lineWidth(2.5f)), "road-label");
+        scheduleFrame();
+    }
+
+    /**
+     * Sets the geometries, as GeoJSON, of the route followed by the marker.
+     */
+    void set(String markerId, String lineGeoJson, String targetLineGeoJson) {
+        lines.put(markerId, lineGeoJson);
+        targetLines.put(markerId, targetLineGeoJson);
+        scheduleFrame();
+    }
+
+    void remove(String markerId) {
+        if (lines.remove(markerId) != null) {
+            targetLines.remove(markerId);
+            scheduleFrame();
+        }
+    }
+
+    boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    void destroy() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+        lines.clear();
+        targetLines.clear();
+        if (style.isFullyLoaded()) {
+            style.removeLayer(TARGET_LINE_LAYER_ID);
+            style.removeSource(LINE_SOURCE_ID);
+            style.removeSource(TARGET_LINE_SOURCE_ID);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        final long token = watchdog.begin();
+        lineSource.setGeoJson(toFeatureCollection(lines));
+        targetLineSource.setGeoJson(toFeatureCollection(targetLines));
+        watchdog.end(token, "animatedRoutes#frame", null);
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private static String toFeatureCollection(Map<String, String> geometries) {
+        int capacity = 64;
+        for (String geometry : geometries.values()) {
+            capacity += geometry.length() + 96;
+        }
+
+        final StringBuilder builder = new StringBuilder(capacity);
+        builder.append("{\"type\":\"FeatureCollection\",\"features\":[");
+        boolean first = true;
+        for (Map.Entry<String, String> entry : geometries.entrySet()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            // Marker ids are generated UUIDs, they never need escaping.
+            builder.append("{\"type\":\"Feature\",\"properties\":{\"")
+                    .append(PROPERTY_MARKER_ID).append("\":\"").append(entry.getKey())
+                    .append("\"},\"geometry\":").append(entry.getValue()).append('}');
+        }
+        return builder.append("]}").toString();
+    }
+
+}
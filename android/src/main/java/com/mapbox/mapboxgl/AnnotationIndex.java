@@ -0,0 +1,332 @@
+package com.mapbox.mapboxgl;
+
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index over the symbols, lines, circles and animated markers of a map, answering
+ * bounding box, radius and nearest neighbour queries without touching the renderer.
+ *
+ * Symbols, lines and circles are held in a {@link PackedRTree} that is rebuilt on the first
+ * query after they change. Animated markers move every frame, so they are checked against
+ * their current positions at query time instead of being indexed.
+ *
+ * Distances are in meters. Boxes don't wrap around the antimeridian.
+ */
+class AnnotationIndex {
+
+    static final int TYPE_SYMBOL = 0;
+    static final int TYPE_LINE = 1;
+    static final int TYPE_CIRCLE = 2;
+    static final int TYPE_ANIMATED_MARKER = 3;
+
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private final Map<String, SymbolController> symbols;
+    private final Map<String, LineController> lines;
+    private final Map<String, CircleController> circles;
+    private final Map<String, AnimatedMarker> animatedMarkers;
+
+    private boolean dirty = true;
+    private PackedRTree tree;
+    private String[] ids;
+    private int[] types;
+    /** Vertices of every item, lat and lng interleaved, a single vertex for points. */
+    private double[][] vertices;
+
+    /**
+     * Ids, types and distances of the annotations a query found, in matching order.
+     */
+    static class Result {
+        final List<String> ids = new ArrayList<>();
+        final List<Integer> types = new ArrayList<>();
+        final List<Double> distances = new ArrayList<>();
+
+        void add(String id, int type, double distance) {
+            ids.add(id);
+            types.add(type);
+            distances.add(distance);
+        }
+
+        Map<String, Object> toMap(boolean withDistances) {
+            final Map<String, Object> map = new HashMap<>(3);
+            map.put("ids", ids);
+            final int[] packedTypes = new int[types.size()];
+            for (int i = 0; i < packedTypes.length; i++) {
+                packedTypes[i] = types.get(i);
+            }
+            map.put("types", packedTypes);
+            if (withDistances) {
+                final double[] packedDistances = new double[distances.size()];
+                for (int i = 0; i < packedDistances.length; i++) {
+                    packedDistances[i] = distances.get(i);
+                }
+                map.put("distances", packedDistances);
+            }
+            return map;
+        }
+    }
+
+    AnnotationIndex(
+            Map<String, SymbolController> symbols,
+            Map<String, LineController> lines,
+            Map<String, CircleController> circles,
+            Map<String, AnimatedMarker> animatedMarkers
+    ) {
+        this.symbols = symbols;
+        this.lines = lines;
+        this.circles = circles;
+        this.animatedMarkers = animatedMarkers;
+    }
+
+    /**
+     * Returns the type mask for a list of type names, or all types for null.
+     */
+    static int typeMask(List<?> typeNames) {
+        if (typeNames == null) {
+            return (1 << TYPE_SYMBOL) | (1 << TYPE_LINE) | (1 << TYPE_CIRCLE) | (1 << TYPE_ANIMATED_MARKER);
+        }
+        int mask = 0;
+        for (Object name : typeNames) {
+            switch ((String) name) {
+                case "symbol":
+                    mask |= 1 << TYPE_SYMBOL;
+                    break;
+                case "line":
+                    mask |= 1 << TYPE_LINE;
+                    break;
+                case "circle":
+                    mask |= 1 << TYPE_CIRCLE;
+                    break;
+                case "animatedMarker":
+                    mask |= 1 << TYPE_ANIMATED_MARKER;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown annotation type: " + name);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Marks the index stale after symbols, lines or circles were added, removed or moved.
+     */
+    void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Returns the annotations of the given types, a bit mask of {@code 1 << TYPE_*}, that
+     * intersect the box.
+     */
+    Result queryBounds(double south, double west, double north, double east, int typeMask) {
+        ensureTree();
+        final Result result = new Result();
+        tree.search(west, south, east, north, item -> {
+            if ((typeMask & (1 << types[item])) != 0) {
+                result.add(ids[item], types[item], 0);
+            }
+        });
+        if ((typeMask & (1 << TYPE_ANIMATED_MARKER)) != 0) {
+            for (AnimatedMarker marker : animatedMarkers.values()) {
+                final Point location = marker.currentLocation();
+                if (location != null && location.latitude() >= south && location.latitude() <= north
+                        && location.longitude() >= west && location.longitude() <= east) {
+                    result.add(marker.identifier, TYPE_ANIMATED_MARKER, 0);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the annotations within {@code radius} meters of the point, nearest first.
+     */
+    Result queryRadius(double lat, double lng, double radius, int typeMask) {
+        return queryNearest(lat, lng, Integer.MAX_VALUE, radius, typeMask);
+    }
+
+    /**
+     * Returns up to {@code k} annotations nearest to the point, no further than
+     * {@code maxDistance} meters, nearest first.
+     */
+    Result queryNearest(double lat, double lng, int k, double maxDistance, int typeMask) {
+        ensureTree();
+
+        final int treeLimit = (int) Math.min(k, (long) tree.size());
+        final double[] treeDistances = new double[treeLimit];
+        final int[] treeItems = tree.nearest(
+                treeLimit,
+                maxDistance,
+                (minX, minY, maxX, maxY) -> boxDistance(lat, lng, minX, minY, maxX, maxY),
+                item -> (typeMask & (1 << types[item])) != 0 ? itemDistance(lat, lng, vertices[item]) : Double.POSITIVE_INFINITY,
+                treeDistances);
+
+        final List<String> markerIds = new ArrayList<>();
+        final List<Double> markerDistances = new ArrayList<>();
+        if ((typeMask & (1 << TYPE_ANIMATED_MARKER)) != 0) {
+            for (AnimatedMarker marker : animatedMarkers.values()) {
+                final Point location = marker.currentLocation();
+                if (location == null) {
+                    continue;
+                }
+                final double distance = RouteIndex.distance(lat, lng, location.latitude(), location.longitude());
+                if (distance <= maxDistance) {
+                    markerIds.add(marker.identifier);
+                    markerDistances.add(distance);
+                }
+            }
+        }
+        final Integer[] markerOrder = new Integer[markerIds.size()];
+        for (int i = 0; i < markerOrder.length; i++) {
+            markerOrder[i] = i;
+        }
+        Arrays.sort(markerOrder, (a, b) -> Double.compare(markerDistances.get(a), markerDistances.get(b)));
+
+        // Merge the two nearest-first lists.
+        final Result result = new Result();
+        int treeIndex = 0;
+        int markerIndex = 0;
+        while (result.ids.size() < k && (treeIndex < treeItems.length || markerIndex < markerOrder.length)) {
+            final boolean takeTree = markerIndex == markerOrder.length
+                    || (treeIndex < treeItems.length && treeDistances[treeIndex] <= markerDistances.get(markerOrder[markerIndex]));
+            if (takeTree) {
+                final int item = treeItems[treeIndex];
+                result.add(ids[item], types[item], treeDistances[treeIndex]);
+                treeIndex++;
+            } else {
+                final int marker = markerOrder[markerIndex];
+                result.add(markerIds.get(marker), TYPE_ANIMATED_MARKER, markerDistances.get(marker));
+                markerIndex++;
+            }
+        }
+        return result;
+    }
+
+    private void ensureTree() {
+        if (!dirty && tree != null) {
+            return;
+        }
+        dirty = false;
+
+        final int count = symbols.size() + lines.size() + circles.size();
+        ids = new String[count];
+        types = new int[count];
+        vertices = new double[count][];
+        final double[] boxes = new double[count * 4];
+
+        int item = 0;
+        for (Map.Entry<String, SymbolController> entry : symbols.entrySet()) {
+            item = addPoint(item, entry.getKey(), TYPE_SYMBOL, entry.getValue().getGeometry(), boxes);
+        }
+        for (Map.Entry<String, CircleController> entry : circles.entrySet()) {
+            item = addPoint(item, entry.getKey(), TYPE_CIRCLE, entry.getValue().getGeometry(), boxes);
+        }
+        for (Map.Entry<String, LineController> entry : lines.entrySet()) {
+            final List<LatLng> geometry = entry.getValue().getGeometry();
+            if (geometry.isEmpty()) {
+                continue;
+            }
+            final double[] lineVertices = new double[geometry.size() * 2];
+            double minLat = Double.POSITIVE_INFINITY;
+            double minLng = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double maxLng = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < geometry.size(); i++) {
+                final LatLng latLng = geometry.get(i);
+                lineVertices[i * 2] = latLng.getLatitude();
+                lineVertices[i * 2 + 1] = latLng.getLongitude();
+                minLat = Math.min(minLat, latLng.getLatitude());
+                maxLat = Math.max(maxLat, latLng.getLatitude());
+                minLng = Math.min(minLng, latLng.getLongitude());
+                maxLng = Math.max(maxLng, latLng.getLongitude());
+            }
+            ids[item] = entry.getKey();
+            types[item] = TYPE_LINE;
+            vertices[item] = lineVertices;
+            boxes[item * 4] = minLng;
+            boxes[item * 4 + 1] = minLat;
+            boxes[item * 4 + 2] = maxLng;
+            boxes[item * 4 + 3] = maxLat;
+            item++;
+        }
+
+        if (item < count) {
+            ids = Arrays.copyOf(ids, item);
+            types = Arrays.copyOf(types, item);
+            vertices = Arrays.copyOf(vertices, item);
+        }
+        tree = new PackedRTree(item < count ? Arrays.copyOf(boxes, item * 4) : boxes);
+    }
+
+    private int addPoint(int item, String id, int type, LatLng latLng, double[] boxes) {
+        if (latLng == null) {
+            return item;
+        }
+        ids[item] = id;
+        types[item] = type;
+        vertices[item] = new double[] {latLng.getLatitude(), latLng.getLongitude()};
+        boxes[item * 4] = boxes[item * 4 + 2] = latLng.getLongitude();
+        boxes[item * 4 + 1] = boxes[item * 4 + 3] = latLng.getLatitude();
+        return item + 1;
+    }
+
+    /**
+     * Lower bound of the distance from the point to anything within the box.
+     */
+    private static double boxDistance(double lat, double lng, double minLng, double minLat, double maxLng, double maxLat) {
+        final double nearestLat = Math.max(minLat, Math.min(maxLat, lat));
+        final double nearestLng = Math.max(minLng, Math.min(maxLng, lng));
+        if (nearestLat == lat && nearestLng == lng) {
+            return 0;
+        }
+        // Measured at the latitude closest to the pole, where longitude degrees are shortest, and
+        // with a margin for the flat approximation, so the estimate stays below the true distance.
+        final double poleward = Math.max(Math.abs(lat), Math.abs(nearestLat));
+        final double dx = Math.toRadians(nearestLng - lng) * Math.cos(Math.toRadians(poleward));
+        final double dy = Math.toRadians(nearestLat - lat);
+        return EARTH_RADIUS * Math.sqrt(dx * dx + dy * dy) * 0.99;
+    }
+
+    /**
+     * Distance from the point to a single vertex or to the closest segment of a line.
+     */
+    private static double itemDistance(double lat, double lng, double[] vertices) {
+        if (vertices.length == 2) {
+            return RouteIndex.distance(lat, lng, vertices[0], vertices[1]);
+        }
+        // Find the closest point on a local equirectangular plane, then measure it exactly.
+        final double cosLat = Math.cos(Math.toRadians(lat));
+        double best = Double.POSITIVE_INFINITY;
+        double bestLat = vertices[0];
+        double bestLng = vertices[1];
+        for (int i = 0; i + 3 < vertices.length; i += 2) {
+            final double ax = vertices[i + 1] * cosLat;
+            final double ay = vertices[i];
+            final double dx = vertices[i + 3] * cosLat - ax;
+            final double dy = vertices[i + 2] - ay;
+            final double px = lng * cosLat - ax;
+            final double py = lat - ay;
+            final double lengthSquared = dx * dx + dy * dy;
+            final double fraction = lengthSquared > 0
+                    ? Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared))
+                    : 0;
+            final double ex = px - fraction * dx;
+            final double ey = py - fraction * dy;
+            final double distanceSquared = ex * ex + ey * ey;
+            if (distanceSquared < best) {
+                best = distanceSquared;
+                bestLat = vertices[i] + (vertices[i + 2] - vertices[i]) * fraction;
+                bestLng = vertices[i + 1] + (vertices[i + 3] - vertices[i + 1]) * fraction;
+            }
+        }
+        return RouteIndex.distance(lat, lng, bestLat, bestLng);
+    }
+
+}
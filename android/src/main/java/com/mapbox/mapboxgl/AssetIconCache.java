@@ -0,0 +1,155 @@
+package com.mapbox.mapboxgl;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of decoded Flutter asset icons, used to answer missing style images.
+ *
+ * Bitmaps are kept in a byte bounded LRU keyed by image id and density bucket. Which
+ * resolution variant exists for a key is remembered separately, so an evicted bitmap is
+ * decoded again without probing the APK, and icons that don't exist are not looked up twice.
+ * Style.addImage copies the pixels, so the same bitmap can be handed to any number of maps.
+ */
+class AssetIconCache {
+
+    interface AssetKeyResolver {
+        String lookupKeyForAsset(String asset);
+    }
+
+    private static final String MISSING = "";
+
+    private static AssetIconCache instance;
+
+    private final LruCache<String, Bitmap> bitmaps;
+    private final Map<String, String> resolvedPaths = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> directoryListings = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    static synchronized AssetIconCache getInstance() {
+        if (instance == null) {
+            // An eighth of the heap, but no more than 32 MB.
+            final int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, 32 * 1024 * 1024);
+            instance = new AssetIconCache(maxBytes);
+        }
+        return instance;
+    }
+
+    AssetIconCache(int maxBytes) {
+        bitmaps = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Returns the highest resolution variant of the asset that doesn't exceed the density
+     * bucket, or null if the asset doesn't exist. May block on IO, call it off the main thread.
+     */
+    Bitmap get(String imageId, float density, AssetManager assetManager, AssetKeyResolver resolver) {
+        final int bucket = Math.max(1, (int) Math.ceil(density));
+        final String key = imageId + "@" + bucket;
+
+        Bitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            hits.incrementAndGet();
+            return bitmap;
+        }
+        misses.incrementAndGet();
+
+        String assetPath = resolvedPaths.get(key);
+        if (assetPath == null) {
+            assetPath = resolve(imageId, bucket, assetManager, resolver);
+            resolvedPaths.put(key, assetPath);
+        }
+        if (MISSING.equals(assetPath)) {
+            return null;
+        }
+
+        bitmap = decode(assetManager, assetPath);
+        if (bitmap != null) {
+            bitmaps.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    Map<String, Object> getStats() {
+        final Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", (long) bitmaps.evictionCount());
+        stats.put("entries", (long) bitmaps.snapshot().size());
+        stats.put("sizeBytes", (long) bitmaps.size());
+        stats.put("maxSizeBytes", (long) bitmaps.maxSize());
+        return stats;
+    }
+
+    void clear() {
+        bitmaps.evictAll();
+        resolvedPaths.clear();
+        directoryListings.clear();
+    }
+
+    // "On devices with a device pixel ratio of 1.8, the asset .../2.0x/my_icon.png would be chosen.
+    // For a device pixel ratio of 2.7, the asset .../3.0x/my_icon.png would be chosen."
+    // Source: https://flutter.dev/docs/development/ui/assets-and-images#resolution-aware
+    private String resolve(String imageId, int bucket, AssetManager assetManager, AssetKeyResolver resolver) {
+        final int separator = imageId.lastIndexOf('/');
+        final String directory = separator >= 0 ? imageId.substring(0, separator + 1) : "";
+        final String name = imageId.substring(separator + 1);
+
+        for (int i = bucket; i > 0; i--) {
+            final String assetPath = i == 1
+                    ? resolver.lookupKeyForAsset(imageId)
+                    : resolver.lookupKeyForAsset(directory + ((float) i) + "x/" + name);
+            if (exists(assetManager, assetPath)) {
+                return assetPath;
+            }
+        }
+        return MISSING;
+    }
+
+    private boolean exists(AssetManager assetManager, String assetPath) {
+        final int separator = assetPath.lastIndexOf('/');
+        final String directory = separator >= 0 ? assetPath.substring(0, separator) : "";
+        final String name = assetPath.substring(separator + 1);
+
+        Set<String> listing = directoryListings.get(directory);
+        if (listing == null) {
+            try {
+                final String[] files = assetManager.list(directory);
+                listing = files != null ? new HashSet<>(Arrays.asList(files)) : Collections.<String>emptySet();
+            } catch (IOException e) {
+                listing = Collections.emptySet();
+            }
+            directoryListings.put(directory, listing);
+        }
+        return listing.contains(name);
+    }
+
+    private static Bitmap decode(AssetManager assetManager, String assetPath) {
+        try (InputStream assetStream = assetManager.open(assetPath)) {
+            return BitmapFactory.decodeStream(assetStream);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.mapbox.mapboxgl;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes image bytes on a small worker pool and delivers the bitmaps on the main thread,
+ * where style mutations have to happen. Every main thread callback is timed by the watchdog
+ * under the task name it was posted with.
+ */
+class BitmapDecoder {
+
+    private static final int POOL_SIZE = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+
+    interface Callback<T> {
+        void onDecoded(T result);
+
+        void onError(Exception exception);
+    }
+
+    /**
+     * Optional downsampling and pixel format for a decode. A target size of 0 keeps the
+     * source size; otherwise the image is subsampled by the largest power of two that keeps it
+     * at least as large as the target.
+     */
+    static class Options {
+        static final Options DEFAULT = new Options(0, 0, Bitmap.Config.ARGB_8888);
+
+        final int targetWidth;
+        final int targetHeight;
+        final Bitmap.Config config;
+
+        Options(int targetWidth, int targetHeight, Bitmap.Config config) {
+            this.targetWidth = targetWidth;
+            this.targetHeight = targetHeight;
+            this.config = config;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MainThreadWatchdog watchdog;
+
+    BitmapDecoder(MainThreadWatchdog watchdog) {
+        this.watchdog = watchdog;
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "mapbox-bitmap-decoder-" + threadCount.incrementAndGet());
+                        thread.setPriority(Thread.NORM_PRIORITY - 1);
+                        return thread;
+                    }
+                });
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    void decode(byte[] bytes, Options options, String task, Callback<Bitmap> callback) {
+        decodeAll(Arrays.asList(bytes), options, task, new Callback<List<Bitmap>>() {
+            @Override
+            public void onDecoded(List<Bitmap> result) {
+                callback.onDecoded(result.get(0));
+            }
+
+            @Override
+            public void onError(Exception exception) {
+                callback.onError(exception);
+            }
+        });
+    }
+
+    /**
+     * Decodes every image in parallel and calls back once, on the main thread, with the bitmaps
+     * in the same order as the input.
+     */
+    void decodeAll(List<byte[]> images, Options options, String task, Callback<List<Bitmap>> callback) {
+        final int count = images.size();
+        final Bitmap[] bitmaps = new Bitmap[count];
+        final AtomicInteger remaining = new AtomicInteger(count);
+        final Exception[] failure = new Exception[1];
+
+        if (count == 0) {
+            postToMainThread(task, () -> callback.onDecoded(new ArrayList<>()));
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            final byte[] bytes = images.get(i);
+            execute(() -> {
+                try {
+                    bitmaps[index] = decodeSync(bytes, options);
+                } catch (Exception e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+
+                if (remaining.decrementAndGet() == 0) {
+                    postToMainThread(task, () -> {
+                        if (failure[0] != null) {
+                            callback.onError(failure[0]);
+                        } else {
+                            callback.onDecoded(Arrays.asList(bitmaps));
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs arbitrary decoding work on the worker pool.
+     */
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Runs {@code runnable} on the main thread, timed by the watchdog as {@code task}.
+     */
+    void postToMainThread(String task, Runnable runnable) {
+        mainHandler.post(watchdog.wrap(task, runnable));
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    static Bitmap decodeSync(byte[] bytes, Options options) {
+        if (options == null) {
+            options = Options.DEFAULT;
+        }
+
+        final BitmapFactory.Options factoryOptions = new BitmapFactory.Options();
+        if (options.targetWidth > 0 || options.targetHeight > 0) {
+            factoryOptions.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(bytes, 0, bytes.length, factoryOptions);
+            factoryOptions.inSampleSize = sampleSize(
+                    factoryOptions.outWidth, factoryOptions.outHeight, options.targetWidth, options.targetHeight);
+            factoryOptions.inJustDecodeBounds = false;
+        }
+        factoryOptions.inPreferredConfig = options.config;
+
+        final Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, factoryOptions);
+        if (bitmap == null) {
+            throw new IllegalArgumentException("Unable to decode bytes as a valid bitmap.");
+        }
+        return bitmap;
+    }
+
+    static int sampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        if (width <= 0 || height <= 0) {
+            return sampleSize;
+        }
+        while ((targetWidth <= 0 || width / (sampleSize * 2) >= targetWidth)
+                && (targetHeight <= 0 || height / (sampleSize * 2) >= targetHeight)) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.mapbox.mapboxgl;
+
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+
+/**
+ * Decides which native camera move frames are forwarded to Dart as camera#onMove events.
+ *
+ * A position passes when the configured rate allows another event and, if thresholds are set,
+ * the zoom, bearing or target moved far enough since the last forwarded position. Positions that
+ * are held back are remembered so the final one can be flushed when the camera goes idle.
+ */
+class CameraMoveThrottle {
+
+    private long minIntervalMillis = 0;
+    private double zoomDelta = 0;
+    private double bearingDelta = 0;
+    private double targetDistance = 0;
+
+    private CameraPosition lastPublished;
+    private long lastPublishedTime;
+    private boolean pending = false;
+
+    /**
+     * Applies the limits. Returns false if they were already in effect, since Dart resends the
+     * options on widget rebuilds.
+     */
+    boolean configure(int maxEventsPerSecond, double zoomDelta, double bearingDelta, double targetDistance) {
+        final long minIntervalMillis = maxEventsPerSecond > 0 ? 1000 / maxEventsPerSecond : 0;
+        if (minIntervalMillis == this.minIntervalMillis && zoomDelta == this.zoomDelta
+                && bearingDelta == this.bearingDelta && targetDistance == this.targetDistance) {
+            return false;
+        }
+        this.minIntervalMillis = minIntervalMillis;
+        this.zoomDelta = zoomDelta;
+        this.bearingDelta = bearingDelta;
+        this.targetDistance = targetDistance;
+        return true;
+    }
+
+    boolean isEnabled() {
+        return minIntervalMillis > 0 || zoomDelta > 0 || bearingDelta > 0 || targetDistance > 0;
+    }
+
+    /**
+     * Returns true if the position should be published now, in which case it is recorded as
+     * the last published position.
+     */
+    boolean accept(CameraPosition position, long now) {
+        if (lastPublished != null) {
+            if (now - lastPublishedTime < minIntervalMillis || !movedBeyondThreshold(position)) {
+                pending = true;
+                return false;
+            }
+        }
+
+        markPublished(position, now);
+        return true;
+    }
+
+    /**
+     * Returns true if a position was held back since the last published one.
+     */
+    boolean hasPending() {
+        return pending;
+    }
+
+    void markPublished(CameraPosition position, long now) {
+        lastPublished = position;
+        lastPublishedTime = now;
+        pending = false;
+    }
+
+    void reset() {
+        lastPublished = null;
+        pending = false;
+    }
+
+    private boolean movedBeyondThreshold(CameraPosition position) {
+        if (zoomDelta <= 0 && bearingDelta <= 0 && targetDistance <= 0) {
+            return true;
+        }
+        if (zoomDelta > 0 && Math.abs(position.zoom - lastPublished.zoom) >= zoomDelta) {
+            return true;
+        }
+        if (bearingDelta > 0) {
+            double delta = Math.abs(position.bearing - lastPublished.bearing) % 360;
+            if (delta > 180) {
+                delta = 360 - delta;
+            }
+            if (delta >= bearingDelta) {
+                return true;
+            }
+        }
+        return targetDistance > 0 && position.target != null && lastPublished.target != null
+                && position.target.distanceTo(lastPublished.target) >= targetDistance;
+    }
+
+}
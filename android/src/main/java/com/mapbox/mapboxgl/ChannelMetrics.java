@@ -0,0 +1,199 @@
+package com.mapbox.mapboxgl;
+
+import android.os.SystemClock;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts, payload sizes and main thread latencies of the method channel traffic of a map.
+ *
+ * Incoming calls are timed around their dispatch, so the latency is the time a call holds the
+ * main thread, not the time until an asynchronous reply. Latencies go into log-linear
+ * histograms with four buckets per power of two, which keeps the percentiles within 25%
+ * at a fixed cost per method. Payload sizes are estimated from the decoded arguments without
+ * walking them whole, so recording a large batch costs about as much as a small one. All
+ * recording happens on the main thread.
+ */
+class ChannelMetrics {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    /** Maps up to this size, such as call arguments and options, are sized entry by entry. */
+    private static final int EXACT_MAP_ENTRIES = 16;
+
+    private static class CallStats {
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long payloadBytes;
+        long maxPayloadBytes;
+        final long[] histogram = new long[BUCKETS];
+
+        Map<String, Object> toMap() {
+            final Map<String, Object> map = new HashMap<>(8);
+            map.put("count", count);
+            map.put("totalMicros", totalNanos / 1000);
+            map.put("maxMicros", maxNanos / 1000);
+            map.put("p50Micros", percentile(0.50) / 1000);
+            map.put("p95Micros", percentile(0.95) / 1000);
+            map.put("p99Micros", percentile(0.99) / 1000);
+            map.put("payloadBytes", payloadBytes);
+            map.put("maxPayloadBytes", maxPayloadBytes);
+            return map;
+        }
+
+        private long percentile(double fraction) {
+            final long rank = Math.max(1, (long) Math.ceil(count * fraction));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    private static class EventStats {
+        long count;
+        long payloadBytes;
+
+        Map<String, Object> toMap() {
+            final Map<String, Object> map = new HashMap<>(2);
+            map.put("count", count);
+            map.put("payloadBytes", payloadBytes);
+            return map;
+        }
+    }
+
+    private final Map<String, CallStats> calls = new HashMap<>();
+    private final Map<String, EventStats> events = new HashMap<>();
+    private long since = SystemClock.uptimeMillis();
+
+    void recordCall(String method, Object arguments, long durationNanos) {
+        CallStats stats = calls.get(method);
+        if (stats == null) {
+            stats = new CallStats();
+            calls.put(method, stats);
+        }
+        final long payload = estimateSize(arguments);
+        stats.count++;
+        stats.totalNanos += durationNanos;
+        stats.maxNanos = Math.max(stats.maxNanos, durationNanos);
+        stats.payloadBytes += payload;
+        stats.maxPayloadBytes = Math.max(stats.maxPayloadBytes, payload);
+        stats.histogram[bucket(durationNanos)]++;
+    }
+
+    void recordEvent(String method, Object arguments) {
+        EventStats stats = events.get(method);
+        if (stats == null) {
+            stats = new EventStats();
+            events.put(method, stats);
+        }
+        stats.count++;
+        stats.payloadBytes += estimateSize(arguments);
+    }
+
+    /**
+     * Returns the calls and events per method since the last reset.
+     */
+    Map<String, Object> snapshot() {
+        final Map<String, Object> callMaps = new HashMap<>(calls.size());
+        for (Map.Entry<String, CallStats> entry : calls.entrySet()) {
+            callMaps.put(entry.getKey(), entry.getValue().toMap());
+        }
+        final Map<String, Object> eventMaps = new HashMap<>(events.size());
+        for (Map.Entry<String, EventStats> entry : events.entrySet()) {
+            eventMaps.put(entry.getKey(), entry.getValue().toMap());
+        }
+        final Map<String, Object> snapshot = new HashMap<>(3);
+        snapshot.put("calls", callMaps);
+        snapshot.put("events", eventMaps);
+        snapshot.put("elapsedMillis", SystemClock.uptimeMillis() - since);
+        return snapshot;
+    }
+
+    void reset() {
+        calls.clear();
+        events.clear();
+        since = SystemClock.uptimeMillis();
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        final int octave = 63 - Long.numberOfLeadingZeros(nanos);
+        final int sub = (int) (nanos >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int octave = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (octave - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Approximate size of a value in the standard message codec.
+     *
+     * Strings and typed arrays are sized exactly. Lists, and maps larger than
+     * {@value #EXACT_MAP_ENTRIES} entries, are sized from their first element, so the cost
+     * depends on the nesting depth of the value rather than on its length.
+     */
+    static long estimateSize(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return ((String) value).length() + 1;
+        }
+        if (value instanceof Number) {
+            return value instanceof Integer ? 4 : 8;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length + 4;
+        }
+        if (value instanceof int[]) {
+            return ((int[]) value).length * 4L + 4;
+        }
+        if (value instanceof long[]) {
+            return ((long[]) value).length * 8L + 4;
+        }
+        if (value instanceof double[]) {
+            return ((double[]) value).length * 8L + 4;
+        }
+        if (value instanceof Collection) {
+            final Collection<?> collection = (Collection<?>) value;
+            if (collection.isEmpty()) {
+                return 4;
+            }
+            return 4 + collection.size() * estimateSize(collection.iterator().next());
+        }
+        if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            if (map.isEmpty()) {
+                return 4;
+            }
+            if (map.size() > EXACT_MAP_ENTRIES) {
+                final Map.Entry<?, ?> first = map.entrySet().iterator().next();
+                return 4 + map.size() * (estimateSize(first.getKey()) + estimateSize(first.getValue()));
+            }
+            long size = 4;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        return 8;
+    }
+
+}
@@ -4,7 +4,6 @@
 
 package com.mapbox.mapboxgl;
 
-import android.app.Activity;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Point;
@@ -151,6 +150,10 @@ class Convert {
   }
 
   private static LatLng toLatLng(Object o) {
+    if (o instanceof double[]) {
+      final double[] data = (double[]) o;
+      return new LatLng(data[0], data[1]);
+    }
     final List<?> data = toList(o);
     return new LatLng(toDouble(data.get(0)), toDouble(data.get(1)));
   }
@@ -171,6 +174,9 @@ class Convert {
     if (o == null) {
       return null;
     }
+    if (o instanceof double[]) {
+      return toLatLngList((double[]) o);
+    }
     final List<?> data = toList(o);
     List<LatLng> latLngList = new ArrayList<>();
     for (int i=0; i<data.size(); i++) {
@@ -180,6 +186,32 @@ class Convert {
     return latLngList;
   }
 
+  /**
+   * Reads coordinates packed as consecutive latitude/longitude pairs, the form a Dart
+   * Float64List arrives in.
+   */
+  static List<LatLng> toLatLngList(double[] packed) {
+    final List<LatLng> latLngList = new ArrayList<>(packed.length / 2);
+    for (int i = 0; i + 1 < packed.length; i += 2) {
+      latLngList.add(new LatLng(packed[i], packed[i + 1]));
+    }
+    return latLngList;
+  }
+
+  static double[] toPackedLatLngs(List<LatLng> latLngs) {
+    final double[] packed = new double[latLngs.size() * 2];
+    for (int i = 0; i < latLngs.size(); i++) {
+      final LatLng latLng = latLngs.get(i);
+      packed[i * 2] = latLng.getLatitude();
+      packed[i * 2 + 1] = latLng.getLongitude();
+    }
+    return packed;
+  }
+
+  static double[] toDoubleArray(Object o) {
+    return PackedValues.toDoubleArray(o);
+  }
+
   private static List<?> toList(Object o) {
     return (List<?>) o;
   }
@@ -282,6 +314,23 @@ class Convert {
       final List attributionButtonMarginsData = toList(attributionButtonMargins);
       sink.setAttributionButtonMargins(toInt(attributionButtonMarginsData.get(0)), toInt(attributionButtonMarginsData.get(1)));
     }
+    final Object animatedMarkerPooling = data.get("animatedMarkerPooling");
+    if (animatedMarkerPooling != null) {
+      sink.setAnimatedMarkerPooling(toBoolean(animatedMarkerPooling));
+    }
+    final Object floatingLabelPooling = data.get("floatingLabelPooling");
+    if (floatingLabelPooling != null) {
+      sink.setFloatingLabelPooling(toBoolean(floatingLabelPooling));
+    }
+    final Object cameraMoveThrottle = data.get("cameraMoveThrottle");
+    if (cameraMoveThrottle != null) {
+      final List<?> throttleData = toList(cameraMoveThrottle);
+      sink.setCameraMoveThrottle(
+        toInt(throttleData.get(0)),
+        toDouble(throttleData.get(1)),
+        toDouble(throttleData.get(2)),
+        toDouble(throttleData.get(3)));
+    }
   }
 
   static void interpretAnimatedMarkerOptions(Object o, AnimatedMarker marker) {
@@ -293,11 +342,10 @@ class Convert {
 
     final Object geometry = data.get("geometry");
     if (geometry != null) {
-      final List<?> arr = toList(geometry);
-      LatLng latLng = toLatLng(geometry);
-      com.mapbox.geojson.Point point = com.mapbox.geojson.Point.fromLngLat(latLng.getLongitude(), latLng.getLatitude());
+      final double[] values = toDoubleArray(geometry);
+      com.mapbox.geojson.Point point = com.mapbox.geojson.Point.fromLngLat(values[1], values[0]);
 
-      marker.updateCoordinates(point, toInt(arr.get(2)));
+      marker.updateCoordinates(point, (long) values[2]);
     }
 
     final Object rotation = data.get("rotation");
@@ -308,7 +356,7 @@ class Convert {
     }
   }
 
-  static void interpretFloatingLabelOptions(Object o, FloatingLabel marker) {
+  static void interpretFloatingLabelOptions(Object o, FloatingLabel marker, BitmapDecoder decoder) {
     final Map<?, ?> data = toMap(o);
     final Object iconImage = data.get("icon");
     if (iconImage != null) {
@@ -326,17 +374,36 @@ class Convert {
     if (imageData != null) {
       final float width = toFloat(data.get("width"));
       final float height = toFloat(data.get("height"));
-      final List<?> image = toList(imageData);
-      marker.updateLabel(width, height, toBitmap(image));
+      final byte[] bytes = getBytesFromImageData(toList(imageData));
+      final long hash = LabelImageStore.hash(bytes);
+      final int version = marker.nextImageVersion();
+      if (marker.showsImage(hash)) {
+        // Same content as on screen, only a size change can be left to apply.
+        marker.updateSize(width, height);
+        return;
+      }
+      decoder.decode(bytes, BitmapDecoder.Options.DEFAULT, "floatingLabel#update (decoded)", new BitmapDecoder.Callback<Bitmap>() {
+        @Override
+        public void onDecoded(Bitmap bitmap) {
+          marker.updateLabel(width, height, bitmap, hash, version);
+        }
+
+        @Override
+        public void onError(Exception exception) {
+          Logger.e(TAG, "Unable to decode floating label image", exception);
+        }
+      });
     }
   }
 
-  static FloatingLabel createFloatingLabel(Object o, MapView mapView, MapboxMap mapboxMap, float density, Activity activity, MapConfiguration mapConfiguration) {
+  static byte[] getFloatingLabelImageBytes(Object o) {
+    return getBytesFromImageData(toList(toMap(o).get("image")));
+  }
+
+  static FloatingLabel createFloatingLabel(Object o, Bitmap bitmap, long imageHash, MapView mapView, MapboxMap mapboxMap, float density, FloatingLabelPlacer placer, LabelImageStore images, FloatingLabelCollection collection) {
     final Map<?, ?> data = toMap(o);
 
     final String id = toString(data.get("id"));
-    final List<?> bitmapData = toList(data.get("image"));
-    final Bitmap bitmap = getBitmapFromBytes(bitmapData);
     final LatLng location = toLatLng(data.get("geometry"));
     final float width = toFloat(data.get("width"));
     final float height = toFloat(data.get("height"));
@@ -347,13 +414,15 @@ class Convert {
             mapboxMap,
             id,
             bitmap,
+            imageHash,
             location,
             width,
             height,
             icon,
             density,
-            activity,
-            mapConfiguration
+            placer,
+            images,
+            collection
     );
   }
 
@@ -576,6 +645,66 @@ class Convert {
     }
   }
 
+  static byte[] getBytesFromImageData(List<?> data) {
+    if (data.size() == 2) {
+      return (byte[]) data.get(1);
+    } else {
+      throw new IllegalArgumentException(
+              "fromBytes should have exactly one argument, the bytes. Got: " + data.size());
+    }
+  }
+
+  static BitmapDecoder.Options toBitmapDecoderOptions(Object o) {
+    if (o == null) {
+      return BitmapDecoder.Options.DEFAULT;
+    }
+    final Map<?, ?> data = toMap(o);
+    final Object targetWidth = data.get("targetWidth");
+    final Object targetHeight = data.get("targetHeight");
+    Bitmap.Config config = Bitmap.Config.ARGB_8888;
+    if ("rgb565".equals(data.get("config"))) {
+      config = Bitmap.Config.RGB_565;
+    }
+    return new BitmapDecoder.Options(
+            targetWidth != null ? toInt(targetWidth) : 0,
+            targetHeight != null ? toInt(targetHeight) : 0,
+            config
+    );
+  }
+
+  static PointClusterSource.Options toPointClusterOptions(Object o) {
+    final PointClusterSource.Options options = new PointClusterSource.Options();
+    if (o == null) {
+      return options;
+    }
+    final Map<?, ?> data = toMap(o);
+    final Object minZoom = data.get("minZoom");
+    if (minZoom != null) {
+      options.minZoom = toInt(minZoom);
+    }
+    final Object maxZoom = data.get("maxZoom");
+    if (maxZoom != null) {
+      options.maxZoom = toInt(maxZoom);
+    }
+    final Object radius = data.get("radius");
+    if (radius != null) {
+      options.radius = toDouble(radius);
+    }
+    final Object minPoints = data.get("minPoints");
+    if (minPoints != null) {
+      options.minPoints = toInt(minPoints);
+    }
+    final Object clusterColor = data.get("clusterColor");
+    if (clusterColor != null) {
+      options.clusterColor = toString(clusterColor);
+    }
+    final Object textColor = data.get("textColor");
+    if (textColor != null) {
+      options.textColor = toString(textColor);
+    }
+    return options;
+  }
+
   private static Bitmap toBitmap(Object o) {
     byte[] bmpData = (byte[]) o;
     Bitmap bitmap = BitmapFactory.decodeByteArray(bmpData, 0, bmpData.length);
@@ -0,0 +1,145 @@
+package com.mapbox.mapboxgl;
+
+/**
+ * Predicts where a marker fed by late, irregular position fixes is now.
+ *
+ * Between fixes the position is extrapolated from the velocity of the recent fixes, for at most
+ * {@code maxExtrapolation} milliseconds past the last fix. When a fix arrives the difference
+ * between the drawn and the newly predicted position is kept as a correction that fades out over
+ * {@code correctionDuration}, so the marker bends onto the new path instead of jumping.
+ */
+class DeadReckoning {
+
+    /** Weight of the newest fix pair when smoothing the velocity. */
+    private static final double VELOCITY_SMOOTHING = 0.6;
+    /** Below this speed, in meters per second, the direction of travel is too noisy to face along. */
+    private static final double MIN_SPEED = 0.5;
+    /** Corrections larger than this are applied at once. */
+    private static final double MAX_CORRECTION = 1000;
+
+    private long clockOffset = 0;
+    private long maxExtrapolation = 3000;
+    private long correctionDuration = 1000;
+
+    private boolean hasFix = false;
+    private double fixLat;
+    private double fixLng;
+    private long fixTime;
+    private double fixHeading = Double.NaN;
+
+    private boolean hasVelocity = false;
+    private double velocityLat;
+    private double velocityLng;
+    private double velocityBearing = Double.NaN;
+
+    private double correctionLat;
+    private double correctionLng;
+    private long correctionStart;
+
+    /**
+     * @param clockOffset        milliseconds to add to the device clock to get the clock of the fixes
+     * @param maxExtrapolation   how long past the last fix the position keeps moving
+     * @param correctionDuration how long a correction takes to fade out
+     */
+    void configure(long clockOffset, long maxExtrapolation, long correctionDuration) {
+        this.clockOffset = clockOffset;
+        this.maxExtrapolation = maxExtrapolation;
+        this.correctionDuration = correctionDuration;
+    }
+
+    /**
+     * Adds a fix taken at {@code time} on the clock of the fixes. {@code drawn} is where the
+     * marker is currently drawn, or null. Returns false for a fix older than the last one.
+     */
+    boolean addFix(double lat, double lng, long time, double heading, long wallTime, double[] drawn) {
+        if (hasFix && time <= fixTime) {
+            return false;
+        }
+
+        if (hasFix) {
+            final double elapsed = time - fixTime;
+            final double instantLat = (lat - fixLat) / elapsed;
+            final double instantLng = (lng - fixLng) / elapsed;
+            if (hasVelocity) {
+                velocityLat += (instantLat - velocityLat) * VELOCITY_SMOOTHING;
+                velocityLng += (instantLng - velocityLng) * VELOCITY_SMOOTHING;
+            } else {
+                velocityLat = instantLat;
+                velocityLng = instantLng;
+                hasVelocity = true;
+            }
+        }
+
+        fixLat = lat;
+        fixLng = lng;
+        fixTime = time;
+        fixHeading = heading;
+        hasFix = true;
+        updateVelocityBearing();
+
+        correctionLat = 0;
+        correctionLng = 0;
+        if (drawn != null) {
+            final double[] predicted = new double[2];
+            predict(wallTime, predicted);
+            final double distance = RouteIndex.distance(drawn[0], drawn[1], predicted[0], predicted[1]);
+            if (distance < MAX_CORRECTION) {
+                correctionLat = drawn[0] - predicted[0];
+                correctionLng = drawn[1] - predicted[1];
+                correctionStart = wallTime;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the predicted lat, lng and heading (NaN when unknown) at the wall clock time into
+     * {@code out}.
+     */
+    void sample(long wallTime, double[] out) {
+        predict(wallTime, out);
+
+        final double remaining = correctionRemaining(wallTime);
+        out[0] += correctionLat * remaining;
+        out[1] += correctionLng * remaining;
+        out[2] = Double.isNaN(velocityBearing) ? fixHeading : velocityBearing;
+    }
+
+    /**
+     * Returns true once the position no longer changes until the next fix.
+     */
+    boolean isSettled(long wallTime) {
+        final boolean moving = hasVelocity && wallTime + clockOffset - fixTime < maxExtrapolation;
+        return !moving && correctionRemaining(wallTime) == 0;
+    }
+
+    private void predict(long wallTime, double[] out) {
+        double elapsed = 0;
+        if (hasVelocity) {
+            elapsed = Math.max(0, Math.min(maxExtrapolation, wallTime + clockOffset - fixTime));
+        }
+        out[0] = fixLat + velocityLat * elapsed;
+        out[1] = fixLng + velocityLng * elapsed;
+    }
+
+    private double correctionRemaining(long wallTime) {
+        if ((correctionLat == 0 && correctionLng == 0) || correctionDuration <= 0) {
+            return 0;
+        }
+        return Math.max(0, 1 - (wallTime - correctionStart) / (double) correctionDuration);
+    }
+
+    private void updateVelocityBearing() {
+        velocityBearing = Double.NaN;
+        if (!hasVelocity || !Double.isNaN(fixHeading)) {
+            return;
+        }
+        // Distance covered in one second, in meters.
+        final double nextLat = fixLat + velocityLat * 1000;
+        final double nextLng = fixLng + velocityLng * 1000;
+        if (RouteIndex.distance(fixLat, fixLng, nextLat, nextLng) >= MIN_SPEED) {
+            velocityBearing = RouteIndex.bearing(fixLat, fixLng, nextLat, nextLng);
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+package com.mapbox.mapboxgl;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.mapbox.geojson.CoordinateContainer;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.Geometry;
+import com.mapbox.geojson.GeometryCollection;
+import com.mapbox.geojson.Point;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shapes the result of a rendered feature query into a compact reply.
+ *
+ * Instead of a GeoJSON string per feature, each feature becomes a map with only what was asked
+ * for: its id, the selected properties and its geometry as a bounding box, a centroid or
+ * coordinate lists. Bounding boxes and centroids are packed doubles in GeoJSON order. Results
+ * are paged with an offset and a limit, the reply carries the total number of hits.
+ */
+class FeatureQuery {
+
+    private static final int GEOMETRY_NONE = 0;
+    private static final int GEOMETRY_BBOX = 1;
+    private static final int GEOMETRY_CENTROID = 2;
+    private static final int GEOMETRY_FULL = 3;
+
+    private final boolean idsOnly;
+    private final List<String> properties;
+    private final int geometry;
+    private final int limit;
+    private final int offset;
+
+    private FeatureQuery(boolean idsOnly, List<String> properties, int geometry, int limit, int offset) {
+        this.idsOnly = idsOnly;
+        this.properties = properties;
+        this.geometry = geometry;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    static FeatureQuery fromMap(Map<?, ?> data) {
+        final Object idsOnly = data.get("idsOnly");
+        final Object properties = data.get("properties");
+        final Object geometry = data.get("geometry");
+        final Object limit = data.get("limit");
+        final Object offset = data.get("offset");
+
+        List<String> keys = null;
+        if (properties != null) {
+            if (!(properties instanceof List)) {
+                throw new IllegalArgumentException("properties must be a list of strings");
+            }
+            keys = new ArrayList<>();
+            for (Object key : (List<?>) properties) {
+                if (!(key instanceof String)) {
+                    throw new IllegalArgumentException("properties must be a list of strings");
+                }
+                keys.add((String) key);
+            }
+        }
+        if (idsOnly != null && !(idsOnly instanceof Boolean)) {
+            throw new IllegalArgumentException("idsOnly must be a bool");
+        }
+        if (geometry != null && !(geometry instanceof String)) {
+            throw new IllegalArgumentException("geometry must be a string");
+        }
+        return new FeatureQuery(
+                idsOnly != null && (Boolean) idsOnly,
+                keys,
+                geometry == null ? GEOMETRY_FULL : geometryMode((String) geometry),
+                limit == null ? Integer.MAX_VALUE : Math.max(0, toInt("limit", limit)),
+                offset == null ? 0 : Math.max(0, toInt("offset", offset))
+        );
+    }
+
+    private static int toInt(String name, Object value) {
+        if (!(value instanceof Integer || value instanceof Long)) {
+            throw new IllegalArgumentException(name + " must be an int");
+        }
+        return (int) Math.min(Integer.MAX_VALUE, ((Number) value).longValue());
+    }
+
+    private static int geometryMode(String name) {
+        switch (name) {
+            case "none":
+                return GEOMETRY_NONE;
+            case "bbox":
+                return GEOMETRY_BBOX;
+            case "centroid":
+                return GEOMETRY_CENTROID;
+            case "full":
+                return GEOMETRY_FULL;
+            default:
+                throw new IllegalArgumentException("Unknown geometry mode: " + name);
+        }
+    }
+
+    /**
+     * Returns the reply for the hits: the requested page of features and the total count.
+     */
+    Map<String, Object> toReply(List<Feature> features) {
+        final int from = Math.min(offset, features.size());
+        final int to = (int) Math.min((long) from + limit, features.size());
+
+        final List<Object> page = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            final Feature feature = features.get(i);
+            if (idsOnly) {
+                page.add(feature.id());
+            } else {
+                page.add(toMap(feature));
+            }
+        }
+
+        final Map<String, Object> reply = new HashMap<>(4);
+        reply.put("features", page);
+        reply.put("total", features.size());
+        reply.put("offset", from);
+        return reply;
+    }
+
+    private Map<String, Object> toMap(Feature feature) {
+        final Map<String, Object> map = new HashMap<>(4);
+        map.put("id", feature.id());
+
+        final JsonObject featureProperties = feature.properties();
+        if (featureProperties != null && (properties == null || !properties.isEmpty())) {
+            final Map<String, Object> selected = new HashMap<>();
+            if (properties == null) {
+                for (Map.Entry<String, JsonElement> entry : featureProperties.entrySet()) {
+                    selected.put(entry.getKey(), toValue(entry.getValue()));
+                }
+            } else {
+                for (String key : properties) {
+                    if (featureProperties.has(key)) {
+                        selected.put(key, toValue(featureProperties.get(key)));
+                    }
+                }
+            }
+            map.put("properties", selected);
+        }
+
+        final Geometry featureGeometry = feature.geometry();
+        if (featureGeometry != null) {
+            switch (geometry) {
+                case GEOMETRY_BBOX:
+                    map.put("bbox", bounds(featureGeometry).toBbox());
+                    break;
+                case GEOMETRY_CENTROID:
+                    map.put("centroid", bounds(featureGeometry).toCentroid());
+                    break;
+                case GEOMETRY_FULL:
+                    map.put("geometry", toGeometryMap(featureGeometry));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Converts a JSON value to the types the standard message codec can send.
+     */
+    static Object toValue(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        if (element.isJsonPrimitive()) {
+            final JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                return primitive.getAsBoolean();
+            }
+            if (primitive.isNumber()) {
+                return toNumber(primitive.getAsNumber());
+            }
+            return primitive.getAsString();
+        }
+        if (element.isJsonArray()) {
+            final JsonArray array = element.getAsJsonArray();
+            final List<Object> list = new ArrayList<>(array.size());
+            for (JsonElement item : array) {
+                list.add(toValue(item));
+            }
+            return list;
+        }
+        final Map<String, Object> map = new HashMap<>();
+        for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+            map.put(entry.getKey(), toValue(entry.getValue()));
+        }
+        return map;
+    }
+
+    /**
+     * Keeps integers as longs and everything else as doubles. Numbers parsed from JSON are lazy
+     * and typed by how they were written, so 1.0 stays a double.
+     */
+    private static Object toNumber(Number number) {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            return number.longValue();
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return number.doubleValue();
+        }
+        final String text = number.toString();
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                // Outside the range of a long, send it as a double.
+            }
+        }
+        return number.doubleValue();
+    }
+
+    private static Map<String, Object> toGeometryMap(Geometry geometry) {
+        final Map<String, Object> map = new HashMap<>(2);
+        map.put("type", geometry.type());
+        if (geometry instanceof GeometryCollection) {
+            final List<Object> geometries = new ArrayList<>();
+            for (Geometry child : ((GeometryCollection) geometry).geometries()) {
+                geometries.add(toGeometryMap(child));
+            }
+            map.put("geometries", geometries);
+        } else if (geometry instanceof CoordinateContainer) {
+            map.put("coordinates", toCoordinates(coordinatesOf(geometry)));
+        }
+        return map;
+    }
+
+    /**
+     * Returns the nested coordinate lists of the geometry, with a Point for every position.
+     */
+    private static Object coordinatesOf(Geometry geometry) {
+        // A Point is a container of its raw lng/lat values, keep the Point itself instead.
+        return geometry instanceof Point ? geometry : ((CoordinateContainer<?>) geometry).coordinates();
+    }
+
+    private static Object toCoordinates(Object coordinates) {
+        if (coordinates instanceof Point) {
+            final Point point = (Point) coordinates;
+            return new double[] {point.longitude(), point.latitude()};
+        }
+        final List<?> list = (List<?>) coordinates;
+        final List<Object> converted = new ArrayList<>(list.size());
+        for (Object item : list) {
+            converted.add(toCoordinates(item));
+        }
+        return converted;
+    }
+
+    private static Bounds bounds(Geometry geometry) {
+        final Bounds bounds = new Bounds();
+        bounds.add(geometry);
+        return bounds;
+    }
+
+    /**
+     * Bounding box and vertex mean of a geometry, gathered in one walk over its coordinates.
+     */
+    private static class Bounds {
+        double west = Double.POSITIVE_INFINITY;
+        double south = Double.POSITIVE_INFINITY;
+        double east = Double.NEGATIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY;
+        double sumLng = 0;
+        double sumLat = 0;
+        int count = 0;
+
+        void add(Geometry geometry) {
+            if (geometry instanceof GeometryCollection) {
+                for (Geometry child : ((GeometryCollection) geometry).geometries()) {
+                    add(child);
+                }
+            } else if (geometry instanceof CoordinateContainer) {
+                addCoordinates(coordinatesOf(geometry));
+            }
+        }
+
+        private void addCoordinates(Object coordinates) {
+            if (coordinates instanceof Point) {
+                final Point point = (Point) coordinates;
+                final double lng = point.longitude();
+                final double lat = point.latitude();
+                west = Math.min(west, lng);
+                east = Math.max(east, lng);
+                south = Math.min(south, lat);
+                north = Math.max(north, lat);
+                sumLng += lng;
+                sumLat += lat;
+                count++;
+                return;
+            }
+            for (Object item : (List<?>) coordinates) {
+                addCoordinates(item);
+            }
+        }
+
+        Object toBbox() {
+            return count == 0 ? null : new double[] {west, south, east, north};
+        }
+
+        Object toCentroid() {
+            return count == 0 ? null : new double[] {sumLng / count, sumLat / count};
+        }
+    }
+
+}
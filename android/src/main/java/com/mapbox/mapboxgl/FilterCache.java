@@ -0,0 +1,78 @@
+package com.mapbox.mapboxgl;
+
+import android.util.LruCache;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.mapbox.mapboxsdk.style.expressions.Expression;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled filter expressions for rendered feature queries.
+ *
+ * Filters arrive from Dart as nested lists, which compare and hash by structure, so they key an
+ * LRU of converted expressions directly and the same filter is only converted once. Filters can
+ * also be registered under an id and referred to by that id alone.
+ */
+class FilterCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    private final Gson gson = new Gson();
+    private final LruCache<List<?>, Expression> compiled = new LruCache<>(MAX_ENTRIES);
+    private final Map<String, Expression> named = new HashMap<>();
+
+    /**
+     * Returns the expression for the filter, converting it on a cache miss. Returns null for a
+     * null filter.
+     */
+    Expression get(List<?> filter) {
+        if (filter == null) {
+            return null;
+        }
+        Expression expression = compiled.get(filter);
+        if (expression == null) {
+            expression = compile(filter);
+            compiled.put(filter, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Returns the filter registered under the id, or null if there is none.
+     */
+    Expression getNamed(String filterId) {
+        return named.get(filterId);
+    }
+
+    void register(String filterId, List<?> filter) {
+        named.put(filterId, compile(filter));
+    }
+
+    void unregister(String filterId) {
+        named.remove(filterId);
+    }
+
+    Map<String, Object> getStats() {
+        final Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", (long) compiled.hitCount());
+        stats.put("misses", (long) compiled.missCount());
+        stats.put("evictions", (long) compiled.evictionCount());
+        stats.put("entries", (long) compiled.size());
+        stats.put("maxEntries", (long) compiled.maxSize());
+        stats.put("named", (long) named.size());
+        return stats;
+    }
+
+    private Expression compile(List<?> filter) {
+        final JsonElement element = gson.toJsonTree(filter);
+        if (!element.isJsonArray()) {
+            throw new IllegalArgumentException("A filter must be an expression array");
+        }
+        return Expression.Converter.convert(element.getAsJsonArray());
+    }
+
+}
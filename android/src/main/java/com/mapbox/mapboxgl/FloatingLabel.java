@@ -1,9 +1,7 @@
 package com.mapbox.mapboxgl;
 
-import android.app.Activity;
 import android.graphics.Bitmap;
 import android.graphics.PointF;
-import android.view.Display;
 
 import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.Point;
@@ -32,16 +30,12 @@ public class FloatingLabel {
     private float translateX;
     private float translateY;
 
-    private float prevTranslateX;
-    private float prevTranslateY;
-
     private String ID;
     private String SOURCE_ID;
     private String LAYER_ID;
     private String IMAGE_ID;
 
     private LatLng location;
-    private Activity activity;
     private MapView mapboxMapView;
     private MapboxMap mapboxMap;
     private float density;
@@ -52,40 +46,78 @@ public class FloatingLabel {
     private GeoJsonSource pointSource;
     private GeoJsonSource labelSource;
 
-    private LatLng prevCameraPosition;
+    private final FloatingLabelPlacer placer;
+    private final LabelImageStore images;
+    private final FloatingLabelCollection collection;
 
-    private MapConfiguration mapConfiguration;
+    private int imageVersion;
+    private boolean destroyed;
+    private boolean hidden;
 
     public FloatingLabel(
             MapView mapView,
             MapboxMap mapboxMap,
             String id,
             Bitmap image,
+            long imageHash,
+            LatLng location,
+            float width,
+            float height,
+            String icon,
+            float density,
+            FloatingLabelPlacer placer,
+            LabelImageStore images
+    ) {
+        this(mapView, mapboxMap, id, image, imageHash, location, width, height, icon, density, placer, images, null);
+    }
+
+    /**
+     * Creates a label rendered as a feature of the given shared collection instead of owning
+     * its own sources and layers. Pass {@code null} for a standalone label.
+     */
+    FloatingLabel(
+            MapView mapView,
+            MapboxMap mapboxMap,
+            String id,
+            Bitmap image,
+            long imageHash,
             LatLng location,
             float width,
             float height,
             String icon,
             float density,
-            Activity activity,
-            MapConfiguration mapConfiguration
+            FloatingLabelPlacer placer,
+            LabelImageStore images,
+            FloatingLabelCollection collection
     ) {
         this.mapboxMapView = mapView;
         this.width = width;
         this.height = height;
         this.location = location;
-        this.activity = activity;
         this.mapboxMap = mapboxMap;
         this.density = density;
         this.icon = icon;
-        this.mapConfiguration = mapConfiguration;
+        this.placer = placer;
+        this.images = images;
+        this.collection = collection;
 
         ID = id;
         SOURCE_ID = id + "-source";
         LAYER_ID = id + "-layer";
-        IMAGE_ID = id + "-image";
+        IMAGE_ID = images.acquire();
 
         style = mapboxMap.getStyle();
 
+        translateX = translateX(anchorX);
+        translateY = translateY(anchorY);
+
+        images.put(IMAGE_ID, image, imageHash);
+
+        if (collection != null) {
+            collection.add(this);
+            return;
+        }
+
         pointSource = new GeoJsonSource(
                 "point-" + SOURCE_ID,
                 Feature.fromGeometry(Point.fromLngLat(location.getLongitude(), location.getLatitude()))
@@ -98,10 +130,6 @@ public class FloatingLabel {
 
         style.addSource(pointSource);
         style.addSource(labelSource);
-        style.addImage(IMAGE_ID, image);
-
-        translateX = (width - 36) / 2;
-        translateY = (height / 2) + 4;
 
         style.addLayer(new SymbolLayer(LAYER_ID, SOURCE_ID)
                 .withProperties(
@@ -122,74 +150,111 @@ public class FloatingLabel {
         );
     }
 
-    public void updatePosition() {
-        activity.runOnUiThread(new Runnable() {
-            public void run() {
-                final LatLng target = mapboxMap.getCameraPosition().target;
-
-                if (style.isFullyLoaded() && !target.equals(prevCameraPosition)) {
-                    prevCameraPosition = target;
-
-                    Display display = activity.getWindowManager().getDefaultDisplay();
-                    android.graphics.Point size = new android.graphics.Point();
-                    display.getSize(size);
-                    int windowWidth = size.x;
-                    int windowHeight = size.y - (int) mapConfiguration.bottomPadding;
-
-                    final PointF pointInWindow = mapboxMap.getProjection().toScreenLocation(location);
-                    final float x = (pointInWindow.x + (width * density));
-                    final float y = (pointInWindow.y - (height * density));
-
-                    final float x2 = (pointInWindow.x - (width * density));
-                    final float y2 = (pointInWindow.y + (height * density)) - (int) mapConfiguration.topPadding;
-
-                    if (x > windowWidth) {
-                        translateX = -((width - 36) / 2);
-                        anchorX = -1;
-                    } else if (x2 < 0) {
-                        translateX = (width - 36) / 2;
-                        anchorX = 1;
-                    }
-
-                    if (y > windowHeight / 2) {
-                        translateY = -((height / 2) - 12);
-                        anchorY = -1;
-                    } else if (y2 < windowHeight / 2) {
-                        translateY = (height / 2) + 4;
-                        anchorY = 1;
-                    }
-
-                    if (translateX != prevTranslateX || translateY != prevTranslateY) {
-                        prevTranslateX = translateX;
-                        prevTranslateY = translateY;
-
-                        style.getLayerAs(LAYER_ID).setProperties(
-                                iconTranslate(new Float[]{translateX, translateY})
-                        );
-                    }
-                }
-            }
-        });
+    /**
+     * Horizontal translation, in density-independent pixels, that puts the label on the side of
+     * its point given by the anchor: 1 for the right, -1 for the left.
+     */
+    float translateX(float anchorX) {
+        return anchorX > 0 ? (width - 36) / 2 : -((width - 36) / 2);
+    }
+
+    /**
+     * Vertical translation, in density-independent pixels, that puts the label below its point
+     * for an anchor of 1 and above it for -1.
+     */
+    float translateY(float anchorY) {
+        return anchorY > 0 ? (height / 2) + 4 : -((height / 2) - 12);
+    }
+
+    /**
+     * Moves the label to the quadrant chosen by the {@link FloatingLabelPlacer}. The layer is
+     * only touched when the translation changes.
+     */
+    void setAnchor(float anchorX, float anchorY) {
+        this.anchorX = anchorX;
+        this.anchorY = anchorY;
+
+        final float x = translateX(anchorX);
+        final float y = translateY(anchorY);
+        if (destroyed || (x == translateX && y == translateY)) {
+            return;
+        }
+        translateX = x;
+        translateY = y;
+        if (collection != null) {
+            collection.invalidate();
+            return;
+        }
+        style.getLayerAs(LAYER_ID).setProperties(
+                iconTranslate(new Float[]{translateX, translateY})
+        );
     }
 
     public void destroy() {
-        style.removeLayer(LAYER_ID);
-        style.removeLayer("point-" + LAYER_ID);
-        style.removeImage(IMAGE_ID);
-        style.removeSource(SOURCE_ID);
-        style.removeSource("point-" + SOURCE_ID);
+        destroyed = true;
+        if (collection != null) {
+            collection.remove(this);
+        } else {
+            style.removeLayer(LAYER_ID);
+            style.removeLayer("point-" + LAYER_ID);
+            style.removeSource(SOURCE_ID);
+            style.removeSource("point-" + SOURCE_ID);
+        }
+        images.release(IMAGE_ID);
     }
 
     public String getLayerId() {
-        return LAYER_ID;
+        return collection != null ? collection.getLabelLayerId() : LAYER_ID;
     }
 
     public String getId() {
         return ID;
     }
 
+    LatLng getLocation() {
+        return location;
+    }
+
+    float getWidth() {
+        return width;
+    }
+
+    float getHeight() {
+        return height;
+    }
+
+    float getAnchorX() {
+        return anchorX;
+    }
+
+    boolean isHidden() {
+        return hidden;
+    }
+
+    String getImageId() {
+        return IMAGE_ID;
+    }
+
+    String getIcon() {
+        return icon;
+    }
+
+    float getTranslateX() {
+        return translateX;
+    }
+
+    float getTranslateY() {
+        return translateY;
+    }
+
     public void updateSourceCoordinates(LatLng location) {
         this.location = location;
+        placer.invalidate();
+
+        if (collection != null) {
+            collection.invalidate();
+            return;
+        }
 
         final Feature point = Feature.fromGeometry(Point.fromLngLat(location.getLongitude(), location.getLatitude()));
 
@@ -197,26 +262,73 @@ public class FloatingLabel {
         labelSource.setGeoJson(point);
     }
 
-    public void updateLabel(float width, float height, Bitmap image) {
-        this.width = width;
-        this.height = height;
+    /**
+     * Reserves a version for an image that is being decoded off the main thread, so that a
+     * slower decode can't overwrite the result of a newer one.
+     */
+    int nextImageVersion() {
+        return ++imageVersion;
+    }
 
-        style.removeImage(IMAGE_ID);
-        style.addImage(IMAGE_ID, image);
+    /**
+     * Returns true if the label already shows the image with the given content hash, so it
+     * doesn't need to be decoded again.
+     */
+    boolean showsImage(long imageHash) {
+        return images.contains(IMAGE_ID, imageHash);
+    }
 
-        updatePosition();
+    void updateLabel(float width, float height, Bitmap image, long imageHash, int version) {
+        if (destroyed || version != imageVersion) {
+            return;
+        }
+        updateLabel(width, height, image, imageHash);
+    }
+
+    public void updateLabel(float width, float height, Bitmap image, long imageHash) {
+        images.put(IMAGE_ID, image, imageHash);
+        updateSize(width, height);
+    }
+
+    void updateSize(float width, float height) {
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        placer.invalidate();
     }
 
     public void updateIcon(String icon) {
-        // @todo
+        if (destroyed || icon.equals(this.icon)) {
+            return;
+        }
+        this.icon = icon;
+        if (collection != null) {
+            collection.invalidate();
+            return;
+        }
+        style.getLayer("point-" + LAYER_ID).setProperties(PropertyFactory.iconImage(icon));
     }
 
     public void hide() {
+        hidden = true;
+        placer.invalidate();
+        if (collection != null) {
+            collection.invalidate();
+            return;
+        }
         style.getLayer(LAYER_ID).setProperties(visibility(Property.NONE));
         style.getLayer("point-" + LAYER_ID).setProperties(visibility(Property.NONE));
     }
 
     public void show() {
+        hidden = false;
+        placer.invalidate();
+        if (collection != null) {
+            collection.invalidate();
+            return;
+        }
         style.getLayer(LAYER_ID).setProperties(visibility(Property.VISIBLE));
         style.getLayer("point-" + LAYER_ID).setProperties(visibility(Property.VISIBLE));
     }
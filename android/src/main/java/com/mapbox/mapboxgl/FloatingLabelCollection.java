@@ -0,0 +1,145 @@
+package com.mapbox.mapboxgl;
+
+import android.view.Choreographer;
+
+import com.google.gson.JsonArray;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.Style;
+import com.mapbox.mapboxsdk.style.layers.Property;
+import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconAllowOverlap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconAnchor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconImage;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconOffset;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconSize;
+
+/**
+ * Renders pooled floating labels as features of one shared source, drawn by a layer for the
+ * labels and a layer for their points.
+ *
+ * Label image, point icon and label offset travel as feature properties. icon-translate can't be
+ * data-driven, so the offset of each label is applied through icon-offset instead, which has the
+ * same effect at an icon size of 1. The source is rewritten at most once per frame. When the map
+ * loads a new style the collection is attached to it and rewritten there.
+ */
+class FloatingLabelCollection implements Choreographer.FrameCallback {
+
+    private static final String SOURCE_ID = "floating-labels-source";
+    private static final String LABEL_LAYER_ID = "floating-labels-layer";
+    private static final String POINT_LAYER_ID = "floating-labels-point-layer";
+
+    static final String PROPERTY_ID = "id";
+    static final String PROPERTY_IMAGE = "image";
+    static final String PROPERTY_ICON = "icon";
+    static final String PROPERTY_OFFSET = "offset";
+
+    private final MainThreadWatchdog watchdog;
+    private final Set<FloatingLabel> labels = new LinkedHashSet<>();
+    private Style style;
+    private GeoJsonSource source;
+
+    private boolean frameScheduled = false;
+
+    FloatingLabelCollection(Style style, MainThreadWatchdog watchdog) {
+        this.watchdog = watchdog;
+        attach(style);
+    }
+
+    /**
+     * Adds the source and layers to a newly loaded style and rewrites the labels into it.
+     */
+    void attach(Style style) {
+        this.style = style;
+
+        style.addSource(source = new GeoJsonSource(SOURCE_ID));
+        style.addLayer(new SymbolLayer(LABEL_LAYER_ID, SOURCE_ID).withProperties(
+                iconImage(get(PROPERTY_IMAGE)),
+                iconOffset(get(PROPERTY_OFFSET)),
+                iconAllowOverlap(true),
+                iconAnchor(Property.ICON_ANCHOR_CENTER)
+        ));
+        style.addLayer(new SymbolLayer(POINT_LAYER_ID, SOURCE_ID).withProperties(
+                iconImage(get(PROPERTY_ICON)),
+                iconAllowOverlap(true),
+                iconSize(1.2f),
+                iconAnchor(Property.ICON_ANCHOR_CENTER)
+        ));
+        invalidate();
+    }
+
+    String getLabelLayerId() {
+        return LABEL_LAYER_ID;
+    }
+
+    void add(FloatingLabel label) {
+        labels.add(label);
+        invalidate();
+    }
+
+    void remove(FloatingLabel label) {
+        if (labels.remove(label)) {
+            invalidate();
+        }
+    }
+
+    void invalidate() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        final long token = watchdog.begin();
+
+        final List<Feature> features = new ArrayList<>(labels.size());
+        for (FloatingLabel label : labels) {
+            if (label.isHidden()) {
+                continue;
+            }
+
+            final LatLng location = label.getLocation();
+            final Feature feature = Feature.fromGeometry(Point.fromLngLat(location.getLongitude(), location.getLatitude()));
+            feature.addStringProperty(PROPERTY_ID, label.getId());
+            feature.addStringProperty(PROPERTY_IMAGE, label.getImageId());
+            if (label.getIcon() != null) {
+                feature.addStringProperty(PROPERTY_ICON, label.getIcon());
+            }
+            final JsonArray offset = new JsonArray(2);
+            offset.add(label.getTranslateX());
+            offset.add(label.getTranslateY());
+            feature.addProperty(PROPERTY_OFFSET, offset);
+            features.add(feature);
+        }
+
+        source.setGeoJson(FeatureCollection.fromFeatures(features));
+        watchdog.end(token, "floatingLabels#render", null);
+    }
+
+    void destroy() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+        labels.clear();
+        if (style.isFullyLoaded()) {
+            style.removeLayer(POINT_LAYER_ID);
+            style.removeLayer(LABEL_LAYER_ID);
+            style.removeSource(SOURCE_ID);
+        }
+    }
+
+}
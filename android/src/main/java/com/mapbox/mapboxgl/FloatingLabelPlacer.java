@@ -0,0 +1,267 @@
+package com.mapbox.mapboxgl;
+
+import android.view.Choreographer;
+
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapView;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.Style;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Places every {@link FloatingLabel} of a map in one pass.
+ *
+ * All label points are projected with a single call, then each label takes the first of its four
+ * quadrants around the point that stays inside the padded map view and doesn't overlap a label
+ * placed before it. Overlaps are found with a uniform screen-space grid, so a pass stays linear in
+ * the number of labels. The resulting translations are applied together at the end of the pass.
+ */
+class FloatingLabelPlacer implements Choreographer.FrameCallback {
+
+    /** Side of a grid cell in pixels, about the size of a label. */
+    private static final int CELL_SIZE = 128;
+
+    private final MapView mapView;
+    private final MapboxMap mapboxMap;
+    private final float density;
+    private final MapConfiguration mapConfiguration;
+    private final Collection<FloatingLabel> labels;
+    private final MainThreadWatchdog watchdog;
+    private final Grid grid = new Grid();
+
+    private double[] coordinates = new double[0];
+    private double[] screenLocations = new double[0];
+    private float[] anchors = new float[0];
+
+    private CameraPosition placedCamera;
+    private boolean dirty = true;
+    private boolean frameScheduled = false;
+
+    FloatingLabelPlacer(MapView mapView, MapboxMap mapboxMap, float density, MapConfiguration mapConfiguration,
+                        Collection<FloatingLabel> labels, MainThreadWatchdog watchdog) {
+        this.mapView = mapView;
+        this.mapboxMap = mapboxMap;
+        this.density = density;
+        this.mapConfiguration = mapConfiguration;
+        this.labels = labels;
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Places the labels on the next frame even if the camera didn't move, for when labels were
+     * added, removed, resized or the padding changed.
+     */
+    void invalidate() {
+        dirty = true;
+        scheduleFrame();
+    }
+
+    /**
+     * Places the labels on the next frame if the camera moved since the last pass.
+     */
+    void onCameraIdle() {
+        scheduleFrame();
+    }
+
+    void cancel() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        final long token = watchdog.begin();
+        place();
+        watchdog.end(token, "floatingLabels#place", null);
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void place() {
+        final Style style = mapboxMap.getStyle();
+        if (style == null || !style.isFullyLoaded() || labels.isEmpty()) {
+            return;
+        }
+        final CameraPosition camera = mapboxMap.getCameraPosition();
+        if (!dirty && camera.equals(placedCamera)) {
+            return;
+        }
+        dirty = false;
+        placedCamera = camera;
+
+        final int count = labels.size();
+        if (coordinates.length != count * 2) {
+            coordinates = new double[count * 2];
+            screenLocations = new double[count * 2];
+            anchors = new float[count * 2];
+        }
+
+        int i = 0;
+        for (FloatingLabel label : labels) {
+            final LatLng location = label.getLocation();
+            coordinates[i * 2] = location.getLatitude();
+            coordinates[i * 2 + 1] = location.getLongitude();
+            i++;
+        }
+        mapboxMap.getProjection().toScreenLocations(coordinates, screenLocations);
+
+        final float left = (float) mapConfiguration.leftPadding;
+        final float top = (float) mapConfiguration.topPadding;
+        final float right = mapView.getWidth() - (float) mapConfiguration.rightPadding;
+        final float bottom = mapView.getHeight() - (float) mapConfiguration.bottomPadding;
+        final float middle = (top + bottom) / 2;
+        grid.reset(mapView.getWidth(), mapView.getHeight());
+
+        final float[] box = new float[4];
+        final float[] fallback = new float[4];
+        i = 0;
+        for (FloatingLabel label : labels) {
+            final float x = (float) screenLocations[i * 2];
+            final float y = (float) screenLocations[i * 2 + 1];
+            final float halfWidth = label.getWidth() * density / 2;
+            final float halfHeight = label.getHeight() * density / 2;
+
+            // Keep the side the label is on unless it runs off the map, and point it towards the
+            // middle of the map vertically, the way a single label would be placed.
+            float preferredX = label.getAnchorX();
+            if (preferredX > 0 && x + label.translateX(1) * density + halfWidth > right) {
+                preferredX = -1;
+            } else if (preferredX < 0 && x + label.translateX(-1) * density - halfWidth < left) {
+                preferredX = 1;
+            }
+            final float preferredY = y > middle ? -1 : 1;
+
+            float anchorX = preferredX;
+            float anchorY = preferredY;
+            if (!label.isHidden()) {
+                boolean found = false;
+                boolean fits = false;
+                for (int candidate = 0; candidate < 4 && !found; candidate++) {
+                    final float candidateX = candidate < 2 ? preferredX : -preferredX;
+                    final float candidateY = candidate % 2 == 0 ? preferredY : -preferredY;
+                    final float centerX = x + label.translateX(candidateX) * density;
+                    final float centerY = y + label.translateY(candidateY) * density;
+                    box[0] = centerX - halfWidth;
+                    box[1] = centerY - halfHeight;
+                    box[2] = centerX + halfWidth;
+                    box[3] = centerY + halfHeight;
+
+                    final boolean inside = box[0] >= left && box[1] >= top && box[2] <= right && box[3] <= bottom;
+                    if (inside && !grid.intersects(box)) {
+                        anchorX = candidateX;
+                        anchorY = candidateY;
+                        found = true;
+                    } else if (inside && !fits) {
+                        // Overlapping is better than being cut off by the edge of the map.
+                        anchorX = candidateX;
+                        anchorY = candidateY;
+                        System.arraycopy(box, 0, fallback, 0, 4);
+                        fits = true;
+                    }
+                }
+                if (found) {
+                    grid.insert(box);
+                } else if (fits) {
+                    grid.insert(fallback);
+                }
+            }
+            anchors[i * 2] = anchorX;
+            anchors[i * 2 + 1] = anchorY;
+            i++;
+        }
+
+        i = 0;
+        for (FloatingLabel label : labels) {
+            label.setAnchor(anchors[i * 2], anchors[i * 2 + 1]);
+            i++;
+        }
+    }
+
+    /**
+     * Uniform grid of the placed label boxes. Boxes are stored once and referenced from every
+     * cell they cover.
+     */
+    private static class Grid {
+
+        private float[] boxes = new float[64 * 4];
+        private int size = 0;
+        private int columns;
+        private int rows;
+        private final List<int[]> cells = new ArrayList<>();
+        private int[] cellSizes = new int[0];
+
+        void reset(int width, int height) {
+            size = 0;
+            columns = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+            rows = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+            final int cellCount = columns * rows;
+            while (cells.size() < cellCount) {
+                cells.add(new int[4]);
+            }
+            if (cellSizes.length < cellCount) {
+                cellSizes = new int[cellCount];
+            } else {
+                Arrays.fill(cellSizes, 0, cellCount, 0);
+            }
+        }
+
+        void insert(float[] box) {
+            if ((size + 1) * 4 > boxes.length) {
+                boxes = Arrays.copyOf(boxes, boxes.length * 2);
+            }
+            System.arraycopy(box, 0, boxes, size * 4, 4);
+
+            for (int row = row(box[1]); row <= row(box[3]); row++) {
+                for (int column = column(box[0]); column <= column(box[2]); column++) {
+                    final int cell = row * columns + column;
+                    int[] entries = cells.get(cell);
+                    if (cellSizes[cell] == entries.length) {
+                        entries = Arrays.copyOf(entries, entries.length * 2);
+                        cells.set(cell, entries);
+                    }
+                    entries[cellSizes[cell]++] = size;
+                }
+            }
+            size++;
+        }
+
+        boolean intersects(float[] box) {
+            for (int row = row(box[1]); row <= row(box[3]); row++) {
+                for (int column = column(box[0]); column <= column(box[2]); column++) {
+                    final int cell = row * columns + column;
+                    final int[] entries = cells.get(cell);
+                    for (int i = 0; i < cellSizes[cell]; i++) {
+                        final int offset = entries[i] * 4;
+                        if (box[0] < boxes[offset + 2] && boxes[offset] < box[2]
+                                && box[1] < boxes[offset + 3] && boxes[offset + 1] < box[3]) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private int column(float x) {
+            return Math.max(0, Math.min(columns - 1, (int) (x / CELL_SIZE)));
+        }
+
+        private int row(float y) {
+            return Math.max(0, Math.min(rows - 1, (int) (y / CELL_SIZE)));
+        }
+    }
+
+}
@@ -1,31 +1,20 @@
 package com.mapbox.mapboxgl;
 
-import android.content.Context;
-import android.util.Log;
-
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
 
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.PluginRegistry;
 
 class GlobalMethodHandler implements MethodChannel.MethodCallHandler {
-    private static final String TAG = GlobalMethodHandler.class.getSimpleName();
-    private static final String DATABASE_NAME = "mbgl-offline.db";
-    private static final int BUFFER_SIZE = 1024 * 2;
     private final PluginRegistry.Registrar registrar;
+    private final MethodChannel methodChannel;
+    private final OfflineDatabaseInstaller offlineDatabaseInstaller = new OfflineDatabaseInstaller();
 
-    GlobalMethodHandler(PluginRegistry.Registrar registrar) {
+    GlobalMethodHandler(PluginRegistry.Registrar registrar, MethodChannel methodChannel) {
         this.registrar = registrar;
+        this.methodChannel = methodChannel;
     }
 
     @Override
@@ -33,8 +22,8 @@ class GlobalMethodHandler implements MethodChannel.MethodCallHandler {
         switch (methodCall.method) {
             case "installOfflineMapTiles":
                 String tilesDb = methodCall.argument("tilesdb");
-                installOfflineMapTiles(tilesDb);
-                result.success(null);
+                String sha256 = methodCall.argument("sha256");
+                installOfflineMapTiles(tilesDb, sha256, result);
                 break;
             default:
                 result.notImplemented();
@@ -42,49 +31,27 @@ class GlobalMethodHandler implements MethodChannel.MethodCallHandler {
         }
     }
 
-    private void installOfflineMapTiles(String tilesDb) {
-        final File dest = new File(registrar.activeContext().getFilesDir(), DATABASE_NAME);
-        try (InputStream input = openTilesDbFile(tilesDb);
-             OutputStream output = new FileOutputStream(dest)) {
-            copy(input, output);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private InputStream openTilesDbFile(String tilesDb) throws IOException {
-        if (tilesDb.startsWith("/")) { // Absolute path.
-            return new FileInputStream(new File(tilesDb));
-        } else {
-            final String assetKey = registrar.lookupKeyForAsset(tilesDb);
-            return registrar.activeContext().getAssets().open(assetKey);
-        }
-    }
-
-    private static int copy(InputStream input, OutputStream output) throws IOException {
-        final byte[] buffer = new byte[BUFFER_SIZE];
-        final BufferedInputStream in = new BufferedInputStream(input, BUFFER_SIZE);
-        final BufferedOutputStream out = new BufferedOutputStream(output, BUFFER_SIZE);
-        int count = 0;
-        int n = 0;
-        try {
-            while ((n = in.read(buffer, 0, BUFFER_SIZE)) != -1) {
-                out.write(buffer, 0, n);
-                count += n;
+    private void installOfflineMapTiles(String tilesDb, String sha256, MethodChannel.Result result) {
+        final String assetPath = tilesDb.startsWith("/") ? null : registrar.lookupKeyForAsset(tilesDb);
+        offlineDatabaseInstaller.install(registrar.activeContext(), tilesDb, assetPath, sha256, new OfflineDatabaseInstaller.Listener() {
+            @Override
+            public void onProgress(long bytesCopied, long totalBytes) {
+                final Map<String, Object> arguments = new HashMap<>(3);
+                arguments.put("tilesdb", tilesDb);
+                arguments.put("bytesCopied", bytesCopied);
+                arguments.put("totalBytes", totalBytes);
+                methodChannel.invokeMethod("installOfflineMapTiles#onProgress", arguments);
             }
-            out.flush();
-        } finally {
-            try {
-                out.close();
-            } catch (IOException e) {
-                Log.e(TAG, e.getMessage(), e);
+
+            @Override
+            public void onInstalled(boolean copied) {
+                result.success(copied);
             }
-            try {
-                in.close();
-            } catch (IOException e) {
-                Log.e(TAG, e.getMessage(), e);
+
+            @Override
+            public void onError(String code, String message) {
+                result.error(code, message, null);
             }
-        }
-        return count;
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package com.mapbox.mapboxgl;
+
+/**
+ * Static 2d KD-tree over points, built once by sorting the points in place.
+ *
+ * Points are stored as interleaved coordinates next to their item indices, with leaves of up to
+ * NODE_SIZE points scanned linearly, so a tree is two arrays and a query allocates only its
+ * stack.
+ */
+class KdTree {
+
+    private static final int NODE_SIZE = 64;
+
+    interface Visitor {
+        void visit(int item);
+    }
+
+    private final int[] ids;
+    private final double[] coords;
+
+    /**
+     * @param x x of every item
+     * @param y y of every item
+     * @param count number of items
+     */
+    KdTree(double[] x, double[] y, int count) {
+        ids = new int[count];
+        coords = new double[count * 2];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+            coords[2 * i] = x[i];
+            coords[2 * i + 1] = y[i];
+        }
+        sort(0, count - 1, 0);
+    }
+
+    /**
+     * Calls the visitor with every item inside the box.
+     */
+    void range(double minX, double minY, double maxX, double maxY, Visitor visitor) {
+        search(minX, minY, maxX, maxY, 0, 0, -1, visitor);
+    }
+
+    /**
+     * Calls the visitor with every item within {@code radius} of the point.
+     */
+    void within(double qx, double qy, double radius, Visitor visitor) {
+        search(qx - radius, qy - radius, qx + radius, qy + radius, qx, qy, radius * radius, visitor);
+    }
+
+    /**
+     * Visits the items in the box, and also within sqrt(r2) of (qx, qy) when r2 isn't negative.
+     */
+    private void search(double minX, double minY, double maxX, double maxY,
+                        double qx, double qy, double r2, Visitor visitor) {
+        if (ids.length == 0) {
+            return;
+        }
+        final int[] stack = new int[stackSize()];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = ids.length - 1;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            final int axis = stack[--top];
+            final int right = stack[--top];
+            final int left = stack[--top];
+
+            if (right - left <= NODE_SIZE) {
+                for (int i = left; i <= right; i++) {
+                    final double x = coords[2 * i];
+                    final double y = coords[2 * i + 1];
+                    if (inside(x, y, minX, minY, maxX, maxY, qx, qy, r2)) {
+                        visitor.visit(ids[i]);
+                    }
+                }
+                continue;
+            }
+
+            final int m = (left + right) >> 1;
+            final double x = coords[2 * m];
+            final double y = coords[2 * m + 1];
+            if (inside(x, y, minX, minY, maxX, maxY, qx, qy, r2)) {
+                visitor.visit(ids[m]);
+            }
+            if (axis == 0 ? minX <= x : minY <= y) {
+                stack[top++] = left;
+                stack[top++] = m - 1;
+                stack[top++] = 1 - axis;
+            }
+            if (axis == 0 ? maxX >= x : maxY >= y) {
+                stack[top++] = m + 1;
+                stack[top++] = right;
+                stack[top++] = 1 - axis;
+            }
+        }
+    }
+
+    private static boolean inside(double x, double y, double minX, double minY, double maxX, double maxY,
+                                  double qx, double qy, double r2) {
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+        if (r2 < 0) {
+            return true;
+        }
+        final double dx = x - qx;
+        final double dy = y - qy;
+        return dx * dx + dy * dy <= r2;
+    }
+
+    private int stackSize() {
+        // A split pops one range of three ints and pushes at most two, once per level of the tree.
+        int depth = 2;
+        for (int n = ids.length; n > NODE_SIZE; n >>= 1) {
+            depth++;
+        }
+        return depth * 3 + 3;
+    }
+
+    private void sort(int left, int right, int axis) {
+        if (right - left <= NODE_SIZE) {
+            return;
+        }
+        final int m = (left + right) >> 1;
+        select(m, left, right, axis);
+        sort(left, m - 1, 1 - axis);
+        sort(m + 1, right, 1 - axis);
+    }
+
+    /**
+     * Floyd-Rivest selection: reorders the range so the k-th smallest on the axis is at k.
+     */
+    private void select(int k, int left, int right, int axis) {
+        while (right > left) {
+            if (right - left > 600) {
+                final int n = right - left + 1;
+                final int m = k - left + 1;
+                final double z = Math.log(n);
+                final double s = 0.5 * Math.exp(2 * z / 3);
+                final double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * (m - n / 2.0 < 0 ? -1 : 1);
+                final int newLeft = (int) Math.max(left, Math.floor(k - m * s / n + sd));
+                final int newRight = (int) Math.min(right, Math.floor(k + (n - m) * s / n + sd));
+                select(k, newLeft, newRight, axis);
+            }
+
+            final double t = coords[2 * k + axis];
+            int i = left;
+            int j = right;
+
+            swap(left, k);
+            if (coords[2 * right + axis] > t) {
+                swap(left, right);
+            }
+            while (i < j) {
+                swap(i, j);
+                i++;
+                j--;
+                while (coords[2 * i + axis] < t) {
+                    i++;
+                }
+                while (coords[2 * j + axis] > t) {
+                    j--;
+                }
+            }
+
+            if (coords[2 * left + axis] == t) {
+                swap(left, j);
+            } else {
+                j++;
+                swap(j, right);
+            }
+
+            if (j <= k) {
+                left = j + 1;
+            }
+            if (k <= j) {
+                right = j - 1;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        final int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        final double x = coords[2 * i];
+        final double y = coords[2 * i + 1];
+        coords[2 * i] = coords[2 * j];
+        coords[2 * i + 1] = coords[2 * j + 1];
+        coords[2 * j] = x;
+        coords[2 * j + 1] = y;
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.mapbox.mapboxgl;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import com.mapbox.mapboxsdk.maps.Style;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Style images that hold floating label bitmaps.
+ *
+ * Labels get a slot, a style image id that is recycled when the label goes away, so label churn
+ * replaces images in place instead of removing and adding them. A bitmap whose encoded content
+ * is already in the slot is skipped, and the bitmaps of one frame are added with a single
+ * {@link Style#addImages} call. Free slots beyond {@link #MAX_FREE_SLOTS} are removed from the
+ * style once nothing can reference them any more.
+ *
+ * The bitmaps of the slots in use are kept, so they can be added again when the map loads a new
+ * style.
+ */
+class LabelImageStore implements Choreographer.FrameCallback {
+
+    private static final String SLOT_PREFIX = "floating-label-image-";
+    private static final int MAX_FREE_SLOTS = 16;
+    /** How long a released slot may still be drawn, until sources referencing it are rewritten. */
+    private static final long RELEASE_DELAY = 1000;
+
+    private static class FreeSlot {
+        final String id;
+        final long releasedAt;
+
+        FreeSlot(String id, long releasedAt) {
+            this.id = id;
+            this.releasedAt = releasedAt;
+        }
+    }
+
+    private final MainThreadWatchdog watchdog;
+    private final ArrayDeque<FreeSlot> freeSlots = new ArrayDeque<>();
+    private final Map<String, Long> contentHashes = new HashMap<>();
+    private final Map<String, Bitmap> slotImages = new HashMap<>();
+    private final HashMap<String, Bitmap> pending = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable trim = () -> {
+        trimScheduled = false;
+        trimFreeSlots();
+    };
+    private Style style;
+
+    private int nextSlot = 0;
+    private boolean frameScheduled = false;
+    private boolean trimScheduled = false;
+
+    LabelImageStore(Style style, MainThreadWatchdog watchdog) {
+        this.style = style;
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Adds the images of the slots in use to a newly loaded style. Free slots are dropped, their
+     * images only existed in the old style.
+     */
+    void attach(Style style) {
+        this.style = style;
+        for (FreeSlot slot : freeSlots) {
+            contentHashes.remove(slot.id);
+        }
+        freeSlots.clear();
+        mainHandler.removeCallbacks(trim);
+        trimScheduled = false;
+        pending.putAll(slotImages);
+        flush();
+    }
+
+    /**
+     * Returns an image id for a new label, reusing a released one when possible.
+     */
+    String acquire() {
+        final FreeSlot slot = freeSlots.pollFirst();
+        return slot != null ? slot.id : SLOT_PREFIX + nextSlot++;
+    }
+
+    /**
+     * Hands the slot back. Its image stays in the style so the next label can replace it.
+     */
+    void release(String id) {
+        slotImages.remove(id);
+        if (pending.remove(id) != null) {
+            // The queued content never reached the style, the slot still shows an older image.
+            contentHashes.remove(id);
+        }
+        freeSlots.addLast(new FreeSlot(id, SystemClock.uptimeMillis()));
+        trimFreeSlots();
+    }
+
+    /**
+     * Removes the images of the oldest free slots beyond {@link #MAX_FREE_SLOTS}, and checks
+     * again later while there are more free slots than that.
+     */
+    private void trimFreeSlots() {
+        final long now = SystemClock.uptimeMillis();
+        while (freeSlots.size() > MAX_FREE_SLOTS && now - freeSlots.peekFirst().releasedAt >= RELEASE_DELAY) {
+            final String removed = freeSlots.pollFirst().id;
+            contentHashes.remove(removed);
+            style.removeImage(removed);
+        }
+        if (freeSlots.size() > MAX_FREE_SLOTS && !trimScheduled) {
+            trimScheduled = true;
+            mainHandler.postDelayed(trim, RELEASE_DELAY - (now - freeSlots.peekFirst().releasedAt));
+        }
+    }
+
+    /**
+     * Returns true if the slot already shows the content with the given hash.
+     */
+    boolean contains(String id, long contentHash) {
+        final Long current = contentHashes.get(id);
+        return current != null && current == contentHash;
+    }
+
+    /**
+     * Queues the bitmap for the slot. It is added with the other bitmaps of this frame, or on
+     * {@link #flush()}.
+     */
+    void put(String id, Bitmap bitmap, long contentHash) {
+        slotImages.put(id, bitmap);
+        if (contains(id, contentHash)) {
+            return;
+        }
+        contentHashes.put(id, contentHash);
+        pending.put(id, bitmap);
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Adds the queued bitmaps now, for images that layers or features are about to reference.
+     */
+    void flush() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        style.addImages(pending);
+        pending.clear();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        final long token = watchdog.begin();
+        flush();
+        watchdog.end(token, "floatingLabelImages#flush", null);
+    }
+
+    void cancel() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+        mainHandler.removeCallbacks(trim);
+        trimScheduled = false;
+        pending.clear();
+        slotImages.clear();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of encoded image bytes, cheap enough to run before decoding.
+     */
+    static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.mapbox.mapboxgl;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flags plugin tasks that hold the main thread for longer than a budget.
+ *
+ * Method calls and frame callbacks wrap their body in {@link #begin()} and
+ * {@link #end(long, String, Object)}; main thread continuations of background work are posted
+ * through {@link #wrap(String, Runnable)}. Nested tasks are accounted to the outermost one. A task over budget is logged and reported to the listener with its name and
+ * the estimated size of its payload.
+ *
+ * With stack capture on, a sampler thread reads the stack of the main thread once the budget
+ * has elapsed, so the report shows where the task was when it went over. The watchdog is off
+ * until configured and costs a clock read per task while on.
+ *
+ * Work that belongs to no map, such as installing an offline database, is timed by the
+ * {@link #shared()} watchdog, which only logs and follows the configuration of the map that
+ * configured its watchdog last.
+ */
+class MainThreadWatchdog {
+
+    private static final String TAG = MainThreadWatchdog.class.getSimpleName();
+    private static final double DEFAULT_BUDGET_MILLIS = 8;
+    private static MainThreadWatchdog shared;
+
+    interface Listener {
+        void onStall(String task, long payloadBytes, long durationNanos, long budgetNanos, StackTraceElement[] stack);
+    }
+
+    private final Listener listener;
+    private final Thread mainThread = Looper.getMainLooper().getThread();
+    private volatile StackTraceElement[] sampledStack;
+    private final Runnable sampleStack = () -> sampledStack = mainThread.getStackTrace();
+
+    private boolean enabled = false;
+    private boolean captureStacks = false;
+    private long budgetNanos = toNanos(DEFAULT_BUDGET_MILLIS);
+    private int depth = 0;
+
+    private HandlerThread samplerThread;
+    private Handler sampler;
+
+    /**
+     * @param listener notified of stalls after they are logged, or null to only log them
+     */
+    MainThreadWatchdog(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * The watchdog for main thread work outside of any map. Only call it on the main thread.
+     */
+    static MainThreadWatchdog shared() {
+        if (shared == null) {
+            shared = new MainThreadWatchdog(null);
+        }
+        return shared;
+    }
+
+    void configure(boolean enabled, double budgetMillis, boolean captureStacks) {
+        this.enabled = enabled;
+        this.budgetNanos = toNanos(budgetMillis);
+        this.captureStacks = captureStacks;
+        if (enabled && captureStacks && sampler == null) {
+            samplerThread = new HandlerThread("mapbox-main-thread-watchdog");
+            samplerThread.start();
+            sampler = new Handler(samplerThread.getLooper());
+        }
+    }
+
+    /**
+     * Starts timing a task on the main thread. Returns the token to pass to {@link #end}.
+     */
+    long begin() {
+        if (!enabled) {
+            return 0;
+        }
+        if (depth++ == 0 && captureStacks && sampler != null) {
+            sampledStack = null;
+            sampler.postDelayed(sampleStack, TimeUnit.NANOSECONDS.toMillis(budgetNanos));
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends timing the task started with {@code token}, reporting it when it went over budget.
+     *
+     * @param payload arguments of the task, sized for the report, or null
+     */
+    void end(long token, String task, Object payload) {
+        if (token == 0 || --depth > 0) {
+            return;
+        }
+        final long duration = System.nanoTime() - token;
+        if (sampler != null) {
+            sampler.removeCallbacks(sampleStack);
+        }
+        if (duration <= budgetNanos) {
+            return;
+        }
+
+        final long payloadBytes = payload != null ? ChannelMetrics.estimateSize(payload) : 0;
+        final StackTraceElement[] stack = captureStacks ? sampledStack : null;
+        sampledStack = null;
+
+        Log.w(TAG, String.format("%s held the main thread for %.1f ms (budget %.1f ms, payload %d bytes)",
+                task, duration / 1e6, budgetNanos / 1e6, payloadBytes));
+        if (stack != null) {
+            final StringBuilder trace = new StringBuilder("Main thread stack after the budget elapsed:");
+            for (StackTraceElement element : stack) {
+                trace.append("\n\tat ").append(element);
+            }
+            Log.w(TAG, trace.toString());
+        }
+        if (listener != null) {
+            listener.onStall(task, payloadBytes, duration, budgetNanos, stack);
+        }
+    }
+
+    /**
+     * Returns a runnable that runs {@code runnable} timed as {@code task}, for posting to the main
+     * thread.
+     */
+    Runnable wrap(String task, Runnable runnable) {
+        return () -> {
+            final long token = begin();
+            try {
+                runnable.run();
+            } finally {
+                end(token, task, null);
+            }
+        };
+    }
+
+    void shutdown() {
+        enabled = false;
+        if (samplerThread != null) {
+            sampler.removeCallbacks(sampleStack);
+            samplerThread.quit();
+            samplerThread = null;
+            sampler = null;
+        }
+    }
+
+    private static long toNanos(double millis) {
+        return (long) (millis * 1e6);
+    }
+
+}
@@ -28,6 +28,12 @@ class MapboxMapBuilder implements MapboxMapOptionsSink {
   private int myLocationTrackingMode = 0;
   private int myLocationRenderMode = 0;
   private String styleString = Style.MAPBOX_STREETS;
+  private boolean animatedMarkerPooling = true;
+  private boolean floatingLabelPooling = true;
+  private int cameraMoveMaxEventsPerSecond = 0;
+  private double cameraMoveZoomDelta = 0;
+  private double cameraMoveBearingDelta = 0;
+  private double cameraMoveTargetDistance = 0;
 
   MapboxMapController build(
     int id, Context context, AtomicInteger state, PluginRegistry.Registrar registrar, String accessToken) {
@@ -38,6 +44,10 @@ class MapboxMapBuilder implements MapboxMapOptionsSink {
     controller.setMyLocationTrackingMode(myLocationTrackingMode);
     controller.setMyLocationRenderMode(myLocationRenderMode);
     controller.setTrackCameraPosition(trackCameraPosition);
+    controller.setAnimatedMarkerPooling(animatedMarkerPooling);
+    controller.setFloatingLabelPooling(floatingLabelPooling);
+    controller.setCameraMoveThrottle(
+      cameraMoveMaxEventsPerSecond, cameraMoveZoomDelta, cameraMoveBearingDelta, cameraMoveTargetDistance);
     return controller;
   }
 
@@ -170,4 +180,22 @@ class MapboxMapBuilder implements MapboxMapOptionsSink {
             (int) y, //bottom
     });
   }
+
+  @Override
+  public void setAnimatedMarkerPooling(boolean animatedMarkerPooling) {
+    this.animatedMarkerPooling = animatedMarkerPooling;
+  }
+
+  @Override
+  public void setFloatingLabelPooling(boolean floatingLabelPooling) {
+    this.floatingLabelPooling = floatingLabelPooling;
+  }
+
+  @Override
+  public void setCameraMoveThrottle(int maxEventsPerSecond, double zoomDelta, double bearingDelta, double targetDistance) {
+    this.cameraMoveMaxEventsPerSecond = maxEventsPerSecond;
+    this.cameraMoveZoomDelta = zoomDelta;
+    this.cameraMoveBearingDelta = bearingDelta;
+    this.cameraMoveTargetDistance = targetDistance;
+  }
 }
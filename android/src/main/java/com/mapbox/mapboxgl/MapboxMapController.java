@@ -10,15 +10,13 @@ import android.app.Application;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
-import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.PointF;
 import android.graphics.RectF;
 import android.location.Location;
 import android.os.Bundle;
-import android.util.DisplayMetrics;
+import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import android.util.Log;
 import android.view.Gravity;
@@ -26,9 +24,6 @@ import android.view.View;
 
 import androidx.annotation.NonNull;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.mapbox.android.core.location.LocationEngine;
 import com.mapbox.android.core.location.LocationEngineCallback;
 import com.mapbox.android.core.location.LocationEngineProvider;
@@ -58,6 +53,9 @@ import com.mapbox.mapboxsdk.plugins.annotation.Annotation;
 import com.mapbox.mapboxsdk.plugins.annotation.Circle;
 import com.mapbox.mapboxsdk.plugins.annotation.CircleManager;
 import com.mapbox.mapboxsdk.plugins.annotation.OnAnnotationClickListener;
+import com.mapbox.mapboxsdk.plugins.annotation.OnCircleDragListener;
+import com.mapbox.mapboxsdk.plugins.annotation.OnLineDragListener;
+import com.mapbox.mapboxsdk.plugins.annotation.OnSymbolDragListener;
 import com.mapbox.mapboxsdk.plugins.annotation.Symbol;
 import com.mapbox.mapboxsdk.plugins.annotation.SymbolManager;
 import com.mapbox.mapboxsdk.plugins.annotation.Line;
@@ -70,8 +68,6 @@ import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.PluginRegistry;
 import io.flutter.plugin.platform.PlatformView;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -120,6 +116,7 @@ final class MapboxMapController
   private LineManager lineManager;
   private CircleManager circleManager;
   private boolean trackCameraPosition = false;
+  private final CameraMoveThrottle cameraMoveThrottle = new CameraMoveThrottle();
   private boolean myLocationEnabled = false;
   private int myLocationTrackingMode = 0;
   private int myLocationRenderMode = 0;
@@ -133,10 +130,26 @@ final class MapboxMapController
   private LocationEngine locationEngine = null;
   private LocalizationPlugin localizationPlugin;
   private Style style;
-  private List<AnimatedMarker> animatedMarkers = new ArrayList<AnimatedMarker>();
-  private List<FloatingLabel> floatingLabels = new ArrayList<FloatingLabel>();
+  private final Map<String, AnimatedMarker> animatedMarkers;
+  private final Map<String, FloatingLabel> floatingLabels;
   private MapConfiguration mapConfiguration = new MapConfiguration();
-  private AnimatedRoute animatedRoute;
+  private FloatingLabelPlacer floatingLabelPlacer;
+  private FloatingLabelCollection floatingLabelCollection;
+  private LabelImageStore labelImages;
+  private boolean floatingLabelPooling = true;
+  private final Map<String, AnimatedRoute> animatedRoutes = new HashMap<>();
+  private AnimatedRouteCollection animatedRouteCollection;
+  private final MainThreadWatchdog watchdog = new MainThreadWatchdog(this::onMainThreadStall);
+  private final AnimatedMarkerEngine animatedMarkerEngine = new AnimatedMarkerEngine(watchdog);
+  private AnimatedMarkerCollection animatedMarkerCollection;
+  private boolean animatedMarkerPooling = true;
+  private final BitmapDecoder bitmapDecoder = new BitmapDecoder(watchdog);
+  private final RoutePreparer routePreparer = new RoutePreparer(watchdog);
+  private final FilterCache filterCache = new FilterCache();
+  private final AnnotationIndex annotationIndex;
+  private PointClusterSource pointClusterSource;
+  private final ChannelMetrics channelMetrics = new ChannelMetrics();
+  private final Set<String> pendingMissingImages = new HashSet<>();
 
   MapboxMapController(
     int id,
@@ -156,6 +169,9 @@ final class MapboxMapController
     this.symbols = new HashMap<>();
     this.lines = new HashMap<>();
     this.circles = new HashMap<>();
+    this.animatedMarkers = new LinkedHashMap<>();
+    this.floatingLabels = new LinkedHashMap<>();
+    this.annotationIndex = new AnnotationIndex(symbols, lines, circles, animatedMarkers);
     this.density = context.getResources().getDisplayMetrics().density;
     methodChannel =
       new MethodChannel(registrar.messenger(), "plugins.flutter.io/mapbox_maps_" + id);
@@ -253,6 +269,7 @@ final class MapboxMapController
   private void removeLine(String lineId) {
     final LineController lineController = lines.remove(lineId);
     if (lineController != null) {
+      annotationIndex.invalidate();
       lineController.remove(lineManager);
     }
   }
@@ -265,14 +282,50 @@ final class MapboxMapController
     return line;
   }
 
+  private AnimatedMarker newAnimatedMarker() {
+    if (!animatedMarkerPooling) {
+      return new AnimatedMarker(mapboxMap, animatedMarkerEngine);
+    }
+    if (animatedMarkerCollection == null) {
+      animatedMarkerCollection = new AnimatedMarkerCollection(style, animatedMarkerEngine);
+      animatedMarkerEngine.setCollection(animatedMarkerCollection);
+    }
+    return new AnimatedMarker(mapboxMap, animatedMarkerEngine, animatedMarkerCollection);
+  }
+
+  private FloatingLabelCollection floatingLabelCollection() {
+    if (!floatingLabelPooling) {
+      return null;
+    }
+    if (floatingLabelCollection == null) {
+      floatingLabelCollection = new FloatingLabelCollection(style, watchdog);
+    }
+    return floatingLabelCollection;
+  }
+
+  private PointClusterSource pointClusterSource() {
+    if (pointClusterSource == null) {
+      pointClusterSource = new PointClusterSource(mapboxMap, style, watchdog);
+    }
+    return pointClusterSource;
+  }
+
+  private void destroyAnimatedRoute(String markerId) {
+    final AnimatedRoute animatedRoute = animatedRoutes.remove(markerId);
+    if (animatedRoute != null) {
+      animatedRoute.destroy();
+    }
+  }
+
   private CircleBuilder newCircleBuilder() {
-    return new CircleBuilder(circleManager);
+    return new CircleBuilder(circleManager());
   }
 
   private void removeCircle(String circleId) {
     final CircleController circleController = circles.remove(circleId);
     if (circleController != null) {
-      circleController.remove(circleManager);
+      annotationIndex.invalidate();
+      circleController.remove(circleManager());
     }
   }
 
@@ -287,6 +340,7 @@ final class MapboxMapController
   @Override
   public void onMapReady(MapboxMap mapboxMap) {
     this.mapboxMap = mapboxMap;
+    this.floatingLabelPlacer = new FloatingLabelPlacer(mapView, mapboxMap, density, mapConfiguration, floatingLabels.values(), watchdog);
     if (mapReadyResult != null) {
       mapReadyResult.success(null);
       mapReadyResult = null;
@@ -296,11 +350,21 @@ final class MapboxMapController
     mapboxMap.addOnCameraIdleListener(this);
 
     mapView.addOnStyleImageMissingListener((id) -> {
-      DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
-      final Bitmap bitmap = getScaledImage(id, displayMetrics.density);
-      if (bitmap != null) {
-        mapboxMap.getStyle().addImage(id, bitmap);
+      // The listener fires for every tile that references the image, only load it once.
+      if (!pendingMissingImages.add(id)) {
+        return;
       }
+      final float displayDensity = context.getResources().getDisplayMetrics().density;
+      bitmapDecoder.execute(() -> {
+        final Bitmap bitmap = getScaledImage(id, displayDensity);
+        bitmapDecoder.postToMainThread("style#onStyleImageMissing (loaded)", () -> {
+          pendingMissingImages.remove(id);
+          final Style currentStyle = mapboxMap.getStyle();
+          if (bitmap != null && !disposed && currentStyle != null && currentStyle.isFullyLoaded()) {
+            currentStyle.addImage(id, bitmap);
+          }
+        });
+      });
     });
 
     setStyleString(styleStringInitial);
@@ -332,8 +396,24 @@ final class MapboxMapController
     public void onStyleLoaded(@NonNull Style style) {
       MapboxMapController.this.style = style;
       enableLineManager(style);
-      // enableSymbolManager(style);
-      // enableCircleManager(style);
+      // Pooled renderers live in the style, move them over to the new one.
+      if (animatedMarkerCollection != null) {
+        animatedMarkerCollection.attach(style);
+        animatedMarkerEngine.setCollection(animatedMarkerCollection);
+      }
+      if (pointClusterSource != null) {
+        pointClusterSource.attach(style);
+      }
+      if (labelImages != null) {
+        labelImages.attach(style);
+      }
+      if (floatingLabelCollection != null) {
+        floatingLabelCollection.attach(style);
+      }
+      if (animatedRouteCollection != null) {
+        animatedRouteCollection.attach(style);
+      }
+      // The symbol and circle managers are created on first use, see symbolManager() and circleManager().
       if (myLocationEnabled) {
         enableLocationComponent(style);
       }
@@ -344,7 +424,7 @@ final class MapboxMapController
 	  
 	  localizationPlugin = new LocalizationPlugin(mapView, mapboxMap, style);
 
-      methodChannel.invokeMethod("map#onStyleLoaded", null);
+      invokeMethod("map#onStyleLoaded", null);
     }
   };
 
@@ -379,15 +459,53 @@ final class MapboxMapController
       symbolManager.setTextAllowOverlap(true);
       symbolManager.setTextIgnorePlacement(true);
       symbolManager.addClickListener(MapboxMapController.this::onAnnotationClick);
+      symbolManager.addDragListener(new OnSymbolDragListener() {
+        @Override
+        public void onAnnotationDragStarted(Symbol annotation) {
+        }
+
+        @Override
+        public void onAnnotationDrag(Symbol annotation) {
+        }
+
+        @Override
+        public void onAnnotationDragFinished(Symbol annotation) {
+          annotationIndex.invalidate();
+        }
+      });
     }
   }
 
 
 
+  private SymbolManager symbolManager() {
+    enableSymbolManager(style);
+    return symbolManager;
+  }
+
+  private CircleManager circleManager() {
+    enableCircleManager(style);
+    return circleManager;
+  }
+
   private void enableLineManager(@NonNull Style style) {
     if (lineManager == null) {
       lineManager = new LineManager(mapView, mapboxMap, style);
       lineManager.addClickListener(MapboxMapController.this::onAnnotationClick);
+      lineManager.addDragListener(new OnLineDragListener() {
+        @Override
+        public void onAnnotationDragStarted(Line annotation) {
+        }
+
+        @Override
+        public void onAnnotationDrag(Line annotation) {
+        }
+
+        @Override
+        public void onAnnotationDragFinished(Line annotation) {
+          annotationIndex.invalidate();
+        }
+      });
     }
   }
 
@@ -395,11 +513,60 @@ final class MapboxMapController
     if (circleManager == null) {
       circleManager = new CircleManager(mapView, mapboxMap, style);
       circleManager.addClickListener(MapboxMapController.this::onAnnotationClick);
+      circleManager.addDragListener(new OnCircleDragListener() {
+        @Override
+        public void onAnnotationDragStarted(Circle annotation) {
+        }
+
+        @Override
+        public void onAnnotationDrag(Circle annotation) {
+        }
+
+        @Override
+        public void onAnnotationDragFinished(Circle annotation) {
+          annotationIndex.invalidate();
+        }
+      });
     }
   }
 
   @Override
   public void onMethodCall(MethodCall call, MethodChannel.Result result) {
+    final long token = watchdog.begin();
+    final long start = System.nanoTime();
+    try {
+      handleMethodCall(call, result);
+    } finally {
+      channelMetrics.recordCall(call.method, call.arguments, System.nanoTime() - start);
+      watchdog.end(token, call.method, call.arguments);
+    }
+  }
+
+  private void onMainThreadStall(String task, long payloadBytes, long durationNanos, long budgetNanos, StackTraceElement[] stack) {
+    final Map<String, Object> arguments = new HashMap<>(5);
+    arguments.put("task", task);
+    arguments.put("payloadBytes", payloadBytes);
+    arguments.put("durationMicros", durationNanos / 1000);
+    arguments.put("budgetMicros", budgetNanos / 1000);
+    if (stack != null) {
+      final List<String> frames = new ArrayList<>(stack.length);
+      for (StackTraceElement element : stack) {
+        frames.add(element.toString());
+      }
+      arguments.put("stack", frames);
+    }
+    invokeMethod("debug#onMainThreadStall", arguments);
+  }
+
+  /**
+   * Sends an event to Dart, counting it in the channel metrics.
+   */
+  private void invokeMethod(String method, Object arguments) {
+    channelMetrics.recordEvent(method, arguments);
+    methodChannel.invokeMethod(method, arguments);
+  }
+
+  private void handleMethodCall(MethodCall call, MethodChannel.Result result) {
     switch (call.method) {
       case "map#waitForMap":
         if (mapboxMap != null) {
@@ -459,6 +626,9 @@ final class MapboxMapController
         // mapboxMap.setCameraPosition(new CameraPosition.Builder().padding(left, top, right, bottom).build());
         mapboxMap.getUiSettings().setAttributionMargins(leftInt, topInt, rightInt, bottomInt);
         mapConfiguration.setPadding(top, bottom, left, right);
+        if (floatingLabelPlacer != null) {
+          floatingLabelPlacer.invalidate();
+        }
         // mapboxMap.setPadding(leftInt, topInt, rightInt, bottomInt);
 
         /*mapView.setPadding(
@@ -552,13 +722,34 @@ final class MapboxMapController
 
         String[] layerIds = ((List<String>) call.argument("layerIds")).toArray(new String[0]);
 
-        List<Object> filter = call.argument("filter");
-        JsonElement jsonElement = filter == null ? null : new Gson().toJsonTree(filter);
-        JsonArray jsonArray = null;
-        if (jsonElement != null && jsonElement.isJsonArray()) {
-          jsonArray = jsonElement.getAsJsonArray();
+        final Expression filterExpression;
+        final String filterId = call.argument("filterId");
+        if (filterId != null) {
+          filterExpression = filterCache.getNamed(filterId);
+          if (filterExpression == null) {
+            result.error("UNKNOWN FILTER", "No filter is registered as " + filterId, null);
+            break;
+          }
+        } else {
+          // Anything but an expression array has always meant no filter.
+          final Object filter = call.argument("filter");
+          try {
+            filterExpression = filterCache.get(filter instanceof List ? (List<?>) filter : null);
+          } catch (RuntimeException e) {
+            result.error("INVALID FILTER", e.getMessage(), null);
+            break;
+          }
+        }
+        final Map<?, ?> options = call.argument("options");
+        FeatureQuery query = null;
+        if (options != null) {
+          try {
+            query = FeatureQuery.fromMap(options);
+          } catch (IllegalArgumentException e) {
+            result.error("INVALID QUERY OPTIONS", e.getMessage(), null);
+            break;
+          }
         }
-        Expression filterExpression = jsonArray == null ? null : Expression.Converter.convert(jsonArray);
         if (call.hasArgument("x")) {
           Double x = call.argument("x");
           Double y = call.argument("y");
@@ -572,6 +763,10 @@ final class MapboxMapController
           RectF rectF = new RectF(left.floatValue(), top.floatValue(), right.floatValue(), bottom.floatValue());
           features = mapboxMap.queryRenderedFeatures(rectF, filterExpression, layerIds);
         }
+        if (query != null) {
+          result.success(query.toReply(features));
+          break;
+        }
         List<String> featuresJson = new ArrayList<>();
         for (Feature feature : features) {
           featuresJson.add(feature.toJson());
@@ -610,22 +805,27 @@ final class MapboxMapController
       case "symbols#addAll": {
         List<String> newSymbolIds = new ArrayList<String>();
         final List<Object> options = call.argument("options");
+        final double[] geometries = call.argument("geometries");
         List<SymbolOptions> symbolOptionsList = new ArrayList<SymbolOptions>();
         if (options != null) {
           SymbolBuilder symbolBuilder;
-          for (Object o : options) {
+          for (int i = 0; i < options.size(); i++) {
             symbolBuilder =  new SymbolBuilder();
-            Convert.interpretSymbolOptions(o, symbolBuilder);
+            Convert.interpretSymbolOptions(options.get(i), symbolBuilder);
+            if (geometries != null && !Double.isNaN(geometries[i * 2])) {
+              symbolBuilder.setGeometry(new LatLng(geometries[i * 2], geometries[i * 2 + 1]));
+            }
             symbolOptionsList.add(symbolBuilder.getSymbolOptions());
           }
           if (!symbolOptionsList.isEmpty()) {
-            List<Symbol> newSymbols = symbolManager.create(symbolOptionsList);
+            List<Symbol> newSymbols = symbolManager().create(symbolOptionsList);
             String symbolId;
             for (Symbol symbol : newSymbols) {
               symbolId = String.valueOf(symbol.getId());
               newSymbolIds.add(symbolId);
               symbols.put(symbolId, new SymbolController(symbol, true, this));
             }
+            annotationIndex.invalidate();
           }
         }
         result.success(newSymbolIds);
@@ -643,16 +843,83 @@ final class MapboxMapController
             }
         }
         if(!symbolList.isEmpty()) {
-          symbolManager.delete(symbolList);
+          symbolManager().delete(symbolList);
+          annotationIndex.invalidate();
         }
         result.success(null);
         break;
       }
+      case "symbols#applyDiff": {
+        final SymbolManager manager = symbolManager();
+        final List<String> removes = call.argument("removes");
+        final List<Object> updates = call.argument("updates");
+        final List<Object> adds = call.argument("adds");
+
+        // Resolve the updates and parse the adds first, so a bad diff fails before anything changes.
+        final Set<String> removedIds = removes != null ? new HashSet<>(removes) : Collections.<String>emptySet();
+        final List<SymbolController> updatedControllers = new ArrayList<>();
+        if (updates != null) {
+          for (Object o : updates) {
+            final String symbolId = (String) toMap(o).get("symbol");
+            if (removedIds.contains(symbolId)) {
+              throw new IllegalArgumentException("Symbol is both updated and removed: " + symbolId);
+            }
+            final SymbolController symbol = symbol(symbolId);
+            // Parse into a throwaway builder first, the live symbol is only changed below.
+            Convert.interpretSymbolOptions(toMap(o).get("options"), new SymbolBuilder());
+            updatedControllers.add(symbol);
+          }
+        }
+        final List<SymbolOptions> symbolOptionsList = new ArrayList<>();
+        if (adds != null) {
+          for (Object o : adds) {
+            final SymbolBuilder symbolBuilder = new SymbolBuilder();
+            Convert.interpretSymbolOptions(o, symbolBuilder);
+            symbolOptionsList.add(symbolBuilder.getSymbolOptions());
+          }
+        }
+
+        if (removes != null) {
+          final List<Symbol> removed = new ArrayList<>();
+          for (String symbolId : removes) {
+            final SymbolController symbolController = symbols.remove(symbolId);
+            if (symbolController != null) {
+              removed.add(symbolController.getSymbol());
+            }
+          }
+          if (!removed.isEmpty()) {
+            manager.delete(removed);
+          }
+        }
+
+        if (!updatedControllers.isEmpty()) {
+          final List<Symbol> updated = new ArrayList<>(updatedControllers.size());
+          for (int i = 0; i < updatedControllers.size(); i++) {
+            final SymbolController symbol = updatedControllers.get(i);
+            Convert.interpretSymbolOptions(toMap(updates.get(i)).get("options"), symbol);
+            updated.add(symbol.getSymbol());
+          }
+          manager.update(updated);
+        }
+
+        final List<String> newSymbolIds = new ArrayList<>();
+        if (!symbolOptionsList.isEmpty()) {
+          for (Symbol symbol : manager.create(symbolOptionsList)) {
+            final String symbolId = String.valueOf(symbol.getId());
+            newSymbolIds.add(symbolId);
+            symbols.put(symbolId, new SymbolController(symbol, true, this));
+          }
+        }
+        annotationIndex.invalidate();
+        result.success(newSymbolIds);
+        break;
+      }
       case "symbol#update": {
         final String symbolId = call.argument("symbol");
         final SymbolController symbol = symbol(symbolId);
         Convert.interpretSymbolOptions(call.argument("options"), symbol);
-        symbol.update(symbolManager);
+        symbol.update(symbolManager());
+        annotationIndex.invalidate();
         result.success(null);
         break;
       }
@@ -664,28 +931,29 @@ final class MapboxMapController
         hashMapLatLng.put("latitude", symbolLatLng.getLatitude());
         hashMapLatLng.put("longitude", symbolLatLng.getLongitude());
         result.success(hashMapLatLng);
+        break;
       }
       case "symbolManager#iconAllowOverlap": {
         final Boolean value = call.argument("iconAllowOverlap");
-        symbolManager.setIconAllowOverlap(value);
+        symbolManager().setIconAllowOverlap(value);
         result.success(null);
         break;
       }
       case "symbolManager#iconIgnorePlacement": {
         final Boolean value = call.argument("iconIgnorePlacement");
-        symbolManager.setIconIgnorePlacement(value);
+        symbolManager().setIconIgnorePlacement(value);
         result.success(null);
         break;
       }
       case "symbolManager#textAllowOverlap": {
         final Boolean value = call.argument("textAllowOverlap");
-        symbolManager.setTextAllowOverlap(value);
+        symbolManager().setTextAllowOverlap(value);
         result.success(null);
         break;
       }
       case "symbolManager#textIgnorePlacement": {
         final Boolean iconAllowOverlap = call.argument("textIgnorePlacement");
-        symbolManager.setTextIgnorePlacement(iconAllowOverlap);
+        symbolManager().setTextIgnorePlacement(iconAllowOverlap);
         result.success(null);
         break;
       }
@@ -695,6 +963,7 @@ final class MapboxMapController
         final Line line = lineBuilder.build();
         final String lineId = String.valueOf(line.getId());
         lines.put(lineId, new LineController(line, true, this));
+        annotationIndex.invalidate();
         result.success(lineId);
         break;
       }
@@ -709,6 +978,7 @@ final class MapboxMapController
         final LineController line = line(lineId);
         Convert.interpretLineOptions(call.argument("options"), line);
         line.update(lineManager);
+        annotationIndex.invalidate();
         result.success(null);
         break;
       }
@@ -716,6 +986,10 @@ final class MapboxMapController
         final String lineId = call.argument("line");
         final LineController line = line(lineId);
         final List<LatLng> lineLatLngs = line.getGeometry();
+        if (Boolean.TRUE.equals(call.argument("packed"))) {
+          result.success(Convert.toPackedLatLngs(lineLatLngs));
+          break;
+        }
         final List<Object> resultList = new ArrayList<>();
         for (LatLng latLng: lineLatLngs){
           Map<String, Double> hashMapLatLng = new HashMap<>();
@@ -732,6 +1006,7 @@ final class MapboxMapController
         final Circle circle = circleBuilder.build();
         final String circleId = String.valueOf(circle.getId());
         circles.put(circleId, new CircleController(circle, true, this));
+        annotationIndex.invalidate();
         result.success(circleId);
         break;
       }
@@ -746,7 +1021,8 @@ final class MapboxMapController
         final String circleId = call.argument("circle");
         final CircleController circle = circle(circleId);
         Convert.interpretCircleOptions(call.argument("options"), circle);
-        circle.update(circleManager);
+        circle.update(circleManager());
+        annotationIndex.invalidate();
         result.success(null);
         break;
       }
@@ -789,20 +1065,167 @@ final class MapboxMapController
       case "style#addImage":{
         if(style==null){
           result.error("STYLE IS NULL", "The style is null. Has onStyleLoaded() already been invoked?", null);
+          break;
         }
-        style.addImage(call.argument("name"), BitmapFactory.decodeByteArray(call.argument("bytes"),0,call.argument("length")), call.argument("sdf"));
+        final String name = call.argument("name");
+        final boolean sdf = call.argument("sdf");
+        final Style targetStyle = style;
+        bitmapDecoder.decode(call.argument("bytes"), Convert.toBitmapDecoderOptions(call.argument("decodeOptions")), "style#addImage (decoded)", new BitmapDecoder.Callback<Bitmap>() {
+          @Override
+          public void onDecoded(Bitmap bitmap) {
+            if (disposed || style != targetStyle || !targetStyle.isFullyLoaded()) {
+              result.error("STYLE CHANGED", "The style was replaced before the image " + name + " was decoded.", null);
+              return;
+            }
+            targetStyle.addImage(name, bitmap, sdf);
+            result.success(null);
+          }
+
+          @Override
+          public void onError(Exception exception) {
+            result.error("IMAGE DECODE FAILED", exception.getMessage(), null);
+          }
+        });
+        break;
+      }
+      case "map#registerFilter": {
+        final String filterId = call.argument("filterId");
+        try {
+          filterCache.register(filterId, call.argument("filter"));
+        } catch (RuntimeException e) {
+          result.error("INVALID FILTER", e.getMessage(), null);
+          break;
+        }
+        result.success(null);
+        break;
+      }
+      case "map#unregisterFilter": {
+        filterCache.unregister(call.argument("filterId"));
         result.success(null);
         break;
       }
+      case "annotations#queryBounds": {
+        final AnnotationIndex.Result hits = annotationIndex.queryBounds(
+                call.argument("south"),
+                call.argument("west"),
+                call.argument("north"),
+                call.argument("east"),
+                AnnotationIndex.typeMask(call.argument("types")));
+        result.success(hits.toMap(false));
+        break;
+      }
+      case "annotations#queryRadius": {
+        final AnnotationIndex.Result hits = annotationIndex.queryRadius(
+                call.argument("latitude"),
+                call.argument("longitude"),
+                call.argument("radius"),
+                AnnotationIndex.typeMask(call.argument("types")));
+        result.success(hits.toMap(true));
+        break;
+      }
+      case "annotations#queryNearest": {
+        final Double maxDistance = call.argument("maxDistance");
+        final AnnotationIndex.Result hits = annotationIndex.queryNearest(
+                call.argument("latitude"),
+                call.argument("longitude"),
+                call.<Integer>argument("k"),
+                maxDistance != null ? maxDistance : Double.POSITIVE_INFINITY,
+                AnnotationIndex.typeMask(call.argument("types")));
+        result.success(hits.toMap(true));
+        break;
+      }
+      case "clusters#setPoints": {
+        final List<String> ids = call.argument("ids");
+        final double[] coordinates = PackedValues.rows(ids, call.argument("coordinates"), 2);
+        if (coordinates == null) {
+          result.error("INVALID CLUSTER POINTS", "Expected a latitude and longitude for every point id", null);
+          break;
+        }
+        final PointClusterSource source = pointClusterSource();
+        source.setPoints(
+                ids,
+                coordinates,
+                call.argument("icons"),
+                call.argument("properties"),
+                Convert.toPointClusterOptions(call.argument("options")),
+                new PointClusterSource.Callback() {
+                  @Override
+                  public void onReady() {
+                    result.success(source.getLayerIds());
+                  }
+
+                  @Override
+                  public void onError(RuntimeException e) {
+                    result.error("CLUSTER ERROR", e.getMessage(), null);
+                  }
+                });
+        break;
+      }
+      case "clusters#clear": {
+        if (pointClusterSource != null) {
+          pointClusterSource.clear();
+        }
+        result.success(null);
+        break;
+      }
+      case "clusters#getExpansionZoom": {
+        try {
+          result.success(pointClusterSource().getClusterExpansionZoom(call.<Integer>argument("clusterId")));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+          result.error("UNKNOWN CLUSTER", e.getMessage(), null);
+        }
+        break;
+      }
+      case "clusters#getLeaves": {
+        final Integer limit = call.argument("limit");
+        final Integer offset = call.argument("offset");
+        try {
+          result.success(pointClusterSource().getLeaves(
+                  call.<Integer>argument("clusterId"),
+                  limit != null ? limit : Integer.MAX_VALUE,
+                  offset != null ? offset : 0));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+          result.error("UNKNOWN CLUSTER", e.getMessage(), null);
+        }
+        break;
+      }
+      case "debug#configureWatchdog": {
+        final Boolean enabled = call.argument("enabled");
+        final Double budgetMillis = call.argument("budgetMillis");
+        final Boolean captureStacks = call.argument("captureStacks");
+        for (MainThreadWatchdog target : Arrays.asList(watchdog, MainThreadWatchdog.shared())) {
+          target.configure(
+                  Boolean.TRUE.equals(enabled),
+                  budgetMillis != null ? budgetMillis : 8,
+                  Boolean.TRUE.equals(captureStacks));
+        }
+        result.success(null);
+        break;
+      }
+      case "debug#metrics": {
+        result.success(channelMetrics.snapshot());
+        if (Boolean.TRUE.equals(call.argument("reset"))) {
+          channelMetrics.reset();
+        }
+        break;
+      }
+      case "map#getFilterCacheStats": {
+        result.success(filterCache.getStats());
+        break;
+      }
+      case "style#getImageCacheStats": {
+        result.success(AssetIconCache.getInstance().getStats());
+        break;
+      }
       case "custom#addAllAnimatedMarkers": {
         List<String> newSymbolIds = new ArrayList<String>();
         final List<Object> options = call.argument("options");
         if (options != null) {
           for (Object o : options) {
-            AnimatedMarker animatedMarker = new AnimatedMarker(mapboxMap);
+            AnimatedMarker animatedMarker = newAnimatedMarker();
             animatedMarker.create();
             Convert.interpretAnimatedMarkerOptions(o, animatedMarker);
-            animatedMarkers.add(animatedMarker);
+            animatedMarkers.put(animatedMarker.identifier, animatedMarker);
 
             newSymbolIds.add(animatedMarker.identifier);
           }
@@ -811,65 +1234,136 @@ final class MapboxMapController
         break;
       }
       case "custom#addAllFloatingLabels": {
-        List<String> newSymbolIds = new ArrayList<String>();
         final List<Object> options = call.argument("options");
+        if (options == null || options.isEmpty()) {
+          result.success(new ArrayList<String>());
+          break;
+        }
 
-        if (options != null) {
-          for (Object o : options) {
-            final FloatingLabel label = Convert.createFloatingLabel(o, mapView, mapboxMap, density, registrar.activity(), mapConfiguration);
-            floatingLabels.add(label);
+        final List<byte[]> images = new ArrayList<>(options.size());
+        final long[] imageHashes = new long[options.size()];
+        for (Object o : options) {
+          final byte[] bytes = Convert.getFloatingLabelImageBytes(o);
+          imageHashes[images.size()] = LabelImageStore.hash(bytes);
+          images.add(bytes);
+        }
+
+        // Labels are created once every image is decoded, the reply carries their ids.
+        bitmapDecoder.decodeAll(images, BitmapDecoder.Options.DEFAULT, "custom#addAllFloatingLabels (decoded)", new BitmapDecoder.Callback<List<Bitmap>>() {
+          @Override
+          public void onDecoded(List<Bitmap> bitmaps) {
+            if (disposed || mapboxMap.getStyle() == null) {
+              result.error("STYLE IS NULL", "The style is null. Has onStyleLoaded() already been invoked?", null);
+              return;
+            }
+            final List<String> newSymbolIds = new ArrayList<String>();
+            final FloatingLabelCollection collection = floatingLabelCollection();
+            if (labelImages == null) {
+              labelImages = new LabelImageStore(style, watchdog);
+            }
+            for (int i = 0; i < options.size(); i++) {
+              final FloatingLabel label = Convert.createFloatingLabel(options.get(i), bitmaps.get(i), imageHashes[i], mapView, mapboxMap, density, floatingLabelPlacer, labelImages, collection);
+              floatingLabels.put(label.getId(), label);
 
-            newSymbolIds.add(label.getId());
+              newSymbolIds.add(label.getId());
+            }
+            // The new layers and features reference the images right away, add them all at once.
+            labelImages.flush();
+            floatingLabelPlacer.invalidate();
+            result.success(newSymbolIds);
           }
-        }
-        result.success(newSymbolIds);
+
+          @Override
+          public void onError(Exception exception) {
+            result.error("IMAGE DECODE FAILED", exception.getMessage(), null);
+          }
+        });
         break;
       }
       case "custom#updateFloatingLabel": {
         final String symbolId = call.argument("symbol");
-        for (FloatingLabel marker : floatingLabels) {
-          if (marker.getId().equals(symbolId)) {
-            Convert.interpretFloatingLabelOptions(call.argument("options"), marker);
-          }
+        final FloatingLabel label = floatingLabels.get(symbolId);
+        if (label != null) {
+          Convert.interpretFloatingLabelOptions(call.argument("options"), label, bitmapDecoder);
         }
         result.success(null);
         break;
       }
       case "custom#removeAllFloatingLabels": {
         final ArrayList<String> symbolIds = call.argument("symbols");
-
-        List<FloatingLabel> toRemove = new ArrayList<FloatingLabel>();
-        for (FloatingLabel marker : floatingLabels) {
-          for(String symbolId : symbolIds){
-            if (symbolId.equals(marker.getId())) {
-              marker.destroy();
-              toRemove.add(marker);
-            }
+        for (String symbolId : symbolIds) {
+          final FloatingLabel label = floatingLabels.remove(symbolId);
+          if (label != null) {
+            label.destroy();
           }
         }
-        floatingLabels.removeAll(toRemove);
+        floatingLabelPlacer.invalidate();
         result.success(null);
         break;
       }
       case "custom#updateAnimatedMarker": {
         final String symbolId = call.argument("symbol");
-        for (AnimatedMarker marker : animatedMarkers) {
-          if (marker.identifier.equals(symbolId)) {
-            Convert.interpretAnimatedMarkerOptions(call.argument("options"), marker);
+        final AnimatedMarker marker = animatedMarkers.get(symbolId);
+        if (marker != null) {
+          Convert.interpretAnimatedMarkerOptions(call.argument("options"), marker);
+        }
+        result.success(null);
+        break;
+      }
+      case "custom#updateAnimatedMarkersBatch": {
+        final List<String> markerIds = call.argument("ids");
+        final double[] values = PackedValues.rows(markerIds, call.argument("values"), 4);
+        if (values == null) {
+          result.error("INVALID BATCH", "Expected latitude, longitude, duration and rotation for every marker id", null);
+          break;
+        }
+        for (int i = 0; i < markerIds.size(); i++) {
+          final AnimatedMarker marker = animatedMarkers.get(markerIds.get(i));
+          if (marker == null) {
+            continue;
+          }
+          final double latitude = values[i * 4];
+          final double longitude = values[i * 4 + 1];
+          final long duration = (long) values[i * 4 + 2];
+          final double rotation = values[i * 4 + 3];
+
+          marker.updateCoordinates(com.mapbox.geojson.Point.fromLngLat(longitude, latitude), duration);
+          if (!Double.isNaN(rotation)) {
+            marker.updateRotation((float) rotation, duration);
+          }
+        }
+        result.success(null);
+        break;
+      }
+      case "custom#addPredictedFixes": {
+        final List<String> markerIds = call.argument("ids");
+        final double[] values = PackedValues.rows(markerIds, call.argument("values"), 4);
+        if (values == null) {
+          result.error("INVALID FIXES", "Expected latitude, longitude, time and heading for every marker id", null);
+          break;
+        }
+        final long clockOffset = Convert.toLong(call.argument("clockOffset"));
+        final long maxExtrapolation = Convert.toLong(call.argument("maxExtrapolation"));
+        final long correctionDuration = Convert.toLong(call.argument("correctionDuration"));
+        for (int i = 0; i < markerIds.size(); i++) {
+          final AnimatedMarker marker = animatedMarkers.get(markerIds.get(i));
+          if (marker == null) {
+            continue;
           }
+          destroyAnimatedRoute(markerIds.get(i));
+          marker.addFix(values[i * 4], values[i * 4 + 1], (long) values[i * 4 + 2], values[i * 4 + 3],
+                  clockOffset, maxExtrapolation, correctionDuration);
         }
         result.success(null);
         break;
       }
       case "custom#removeAllAnimatedMarkers": {
         final ArrayList<String> symbolIds = call.argument("symbols");
-
-        for (AnimatedMarker marker : animatedMarkers) {
-          for(String symbolId : symbolIds){
-            if (symbolId.equals(marker.identifier)) {
-              marker.destroy();
-              animatedMarkers.remove(marker);
-            }
+        for (String symbolId : symbolIds) {
+          final AnimatedMarker marker = animatedMarkers.remove(symbolId);
+          if (marker != null) {
+            destroyAnimatedRoute(symbolId);
+            marker.destroy();
           }
         }
         result.success(null);
@@ -880,12 +1374,18 @@ final class MapboxMapController
         final String line = call.argument("line");
         final String targetLine = call.argument("targetLine");
 
+        AnimatedRoute animatedRoute = animatedRoutes.get(markerId);
         if (animatedRoute == null) {
-          for (AnimatedMarker marker : animatedMarkers) {
-            if (marker.identifier.equals(markerId)) {
-              animatedRoute = new AnimatedRoute(mapboxMap, marker);
-            }
+          final AnimatedMarker marker = animatedMarkers.get(markerId);
+          if (marker == null || marker.currentLocation() == null) {
+            result.error("UNKNOWN MARKER", "No positioned animated marker with id " + markerId, null);
+            break;
+          }
+          if (animatedRouteCollection == null) {
+            animatedRouteCollection = new AnimatedRouteCollection(style, watchdog);
           }
+          animatedRoute = new AnimatedRoute(marker, animatedRouteCollection, routePreparer);
+          animatedRoutes.put(markerId, animatedRoute);
         }
 
         animatedRoute.update(new AnimatedRouteConfiguration(
@@ -895,47 +1395,82 @@ final class MapboxMapController
         result.success(null);
         break;
       }
+      case "custom#playTrajectory": {
+        final String markerId = call.argument("markerId");
+        final AnimatedMarker marker = animatedMarkers.get(markerId);
+        if (marker == null) {
+          result.error("UNKNOWN MARKER", "No animated marker with id " + markerId, null);
+          break;
+        }
+        final Number clockOffset = call.argument("clockOffset");
+        final Trajectory trajectory;
+        try {
+          trajectory = new Trajectory(
+                  Convert.toDoubleArray(call.argument("points")),
+                  clockOffset != null ? clockOffset.longValue() : 0);
+        } catch (IllegalArgumentException e) {
+          result.error("INVALID TRAJECTORY", e.getMessage(), null);
+          break;
+        }
+        // A route would queue its next leg on top of the playback.
+        destroyAnimatedRoute(markerId);
+        marker.playTrajectory(trajectory);
+        result.success(null);
+        break;
+      }
+      case "custom#getRouteProgress": {
+        final AnimatedRoute animatedRoute = animatedRoutes.get(call.argument("markerId"));
+        result.success(animatedRoute != null ? animatedRoute.getProgress() : null);
+        break;
+      }
       case "custom#destroyAnimatedLine": {
-        if (animatedRoute != null) {
-          animatedRoute.destroy();
-          animatedRoute = null;
+        final String markerId = call.argument("markerId");
+        if (markerId != null) {
+          destroyAnimatedRoute(markerId);
+        } else {
+          for (AnimatedRoute animatedRoute : animatedRoutes.values()) {
+            animatedRoute.destroy();
+          }
+          animatedRoutes.clear();
+          if (animatedRouteCollection != null) {
+            animatedRouteCollection.destroy();
+            animatedRouteCollection = null;
+          }
         }
         result.success(null);
         break;
       }
       case "custom#getAnimatedMarkerLocation": {
         final String symbolId = call.argument("markerId");
-
-        for (AnimatedMarker marker : animatedMarkers) {
-          if (marker.identifier.equals(symbolId)) {
-            Map<String, Double> hashMapLatLng = new HashMap<>();
-            hashMapLatLng.put("latitude", marker.currentLocation().latitude());
-            hashMapLatLng.put("longitude", marker.currentLocation().longitude());
-            result.success(hashMapLatLng);
-            return;
-          }
+        final AnimatedMarker marker = animatedMarkers.get(symbolId);
+        if (marker != null && marker.currentLocation() != null) {
+          Map<String, Double> hashMapLatLng = new HashMap<>();
+          hashMapLatLng.put("latitude", marker.currentLocation().latitude());
+          hashMapLatLng.put("longitude", marker.currentLocation().longitude());
+          result.success(hashMapLatLng);
+          return;
         }
         result.success(null);
         break;
       }
       case "custom#getLabelAnchor": {
         final String id = (String) call.argument("id");
+        final FloatingLabel label = floatingLabels.get(id);
+        if (label == null) {
+          result.success(null);
+          break;
+        }
 
-        for (FloatingLabel label : floatingLabels) {
-          if (label.getId().equals(id)) {
-            final PointF position = label.getAnchor();
+        final PointF position = label.getAnchor();
 
-            Map<String, Object> reply = new HashMap<>();
-            List<Float> json = new ArrayList<>();
-            json.add(position.x);
-            json.add(position.y);
+        Map<String, Object> reply = new HashMap<>();
+        List<Float> json = new ArrayList<>();
+        json.add(position.x);
+        json.add(position.y);
 
-            reply.put("location", json);
+        reply.put("location", json);
 
-            result.success(reply);
-            return;
-          }
-        }
+        result.success(reply);
         break;
       }
       default:
@@ -948,7 +1483,7 @@ final class MapboxMapController
     final Map<String, Object> arguments = new HashMap<>(2);
     boolean isGesture = reason == MapboxMap.OnCameraMoveStartedListener.REASON_API_GESTURE;
     arguments.put("isGesture", isGesture);
-    methodChannel.invokeMethod("camera#onMoveStarted", arguments);
+    invokeMethod("camera#onMoveStarted", arguments);
   }
 
   @Override
@@ -956,31 +1491,49 @@ final class MapboxMapController
     if (!trackCameraPosition) {
       return;
     }
+    final CameraPosition position = mapboxMap.getCameraPosition();
+    if (cameraMoveThrottle.isEnabled() && !cameraMoveThrottle.accept(position, SystemClock.uptimeMillis())) {
+      return;
+    }
+    publishCameraMove(position);
+  }
+
+  private void publishCameraMove(CameraPosition position) {
     final Map<String, Object> arguments = new HashMap<>(2);
-    arguments.put("position", Convert.toJson(mapboxMap.getCameraPosition()));
-    methodChannel.invokeMethod("camera#onMove", arguments);
+    arguments.put("position", Convert.toJson(position));
+    invokeMethod("camera#onMove", arguments);
   }
 
   @Override
   public void onCameraIdle() {
-    for (FloatingLabel marker : floatingLabels) {
-      marker.updatePosition();
+    final long token = watchdog.begin();
+    if (trackCameraPosition && cameraMoveThrottle.hasPending()) {
+      // Always deliver the position the camera settled on, even if it was throttled.
+      final CameraPosition position = mapboxMap.getCameraPosition();
+      cameraMoveThrottle.markPublished(position, SystemClock.uptimeMillis());
+      publishCameraMove(position);
     }
 
-    methodChannel.invokeMethod("camera#onIdle", Collections.singletonMap("map", id));
+    floatingLabelPlacer.onCameraIdle();
+    if (pointClusterSource != null) {
+      pointClusterSource.update();
+    }
+
+    invokeMethod("camera#onIdle", Collections.singletonMap("map", id));
+    watchdog.end(token, "camera#onIdle", null);
   }
 
   @Override
   public void onCameraTrackingChanged(int currentMode) {
     final Map<String, Object> arguments = new HashMap<>(2);
     arguments.put("mode", currentMode);
-    methodChannel.invokeMethod("map#onCameraTrackingChanged", arguments);
+    invokeMethod("map#onCameraTrackingChanged", arguments);
   }
 
   @Override
   public void onCameraTrackingDismissed() {
     this.myLocationTrackingMode = 0;
-    methodChannel.invokeMethod("map#onCameraTrackingDismissed", new HashMap<>());
+    invokeMethod("map#onCameraTrackingDismissed", new HashMap<>());
   }
 
   @Override
@@ -1011,21 +1564,21 @@ final class MapboxMapController
   public void onSymbolTapped(Symbol symbol) {
     final Map<String, Object> arguments = new HashMap<>(2);
     arguments.put("symbol", String.valueOf(symbol.getId()));
-    methodChannel.invokeMethod("symbol#onTap", arguments);
+    invokeMethod("symbol#onTap", arguments);
   }
 
   @Override
   public void onLineTapped(Line line) {
     final Map<String, Object> arguments = new HashMap<>(2);
     arguments.put("line", String.valueOf(line.getId()));
-    methodChannel.invokeMethod("line#onTap", arguments);
+    invokeMethod("line#onTap", arguments);
   }
 
   @Override
   public void onCircleTapped(Circle circle) {
     final Map<String, Object> arguments = new HashMap<>(2);
     arguments.put("circle", String.valueOf(circle.getId()));
-    methodChannel.invokeMethod("circle#onTap", arguments);
+    invokeMethod("circle#onTap", arguments);
   }
 
   @Override
@@ -1036,7 +1589,7 @@ final class MapboxMapController
     arguments.put("y", pointf.y);
     arguments.put("lng", point.getLongitude());
     arguments.put("lat", point.getLatitude());
-    methodChannel.invokeMethod("map#onMapClick", arguments);
+    invokeMethod("map#onMapClick", arguments);
     return true;
   }
 
@@ -1048,7 +1601,7 @@ final class MapboxMapController
     arguments.put("y", pointf.y);
     arguments.put("lng", point.getLongitude());
     arguments.put("lat", point.getLatitude());
-    methodChannel.invokeMethod("map#onMapLongClick", arguments);
+    invokeMethod("map#onMapLongClick", arguments);
     return true;
   }
 
@@ -1058,6 +1611,35 @@ final class MapboxMapController
       return;
     }
     disposed = true;
+    animatedMarkerEngine.dispose();
+    for (AnimatedRoute animatedRoute : animatedRoutes.values()) {
+      animatedRoute.destroy();
+    }
+    animatedRoutes.clear();
+    if (animatedRouteCollection != null) {
+      animatedRouteCollection.destroy();
+      animatedRouteCollection = null;
+    }
+    if (animatedMarkerCollection != null) {
+      animatedMarkerCollection.destroy();
+      animatedMarkerCollection = null;
+    }
+    if (floatingLabelPlacer != null) {
+      floatingLabelPlacer.cancel();
+    }
+    if (labelImages != null) {
+      labelImages.cancel();
+    }
+    if (floatingLabelCollection != null) {
+      floatingLabelCollection.destroy();
+      floatingLabelCollection = null;
+    }
+    bitmapDecoder.shutdown();
+    routePreparer.shutdown();
+    watchdog.shutdown();
+    if (pointClusterSource != null) {
+      pointClusterSource.destroy();
+    }
     if (locationComponent != null) {
       locationComponent.setLocationComponentEnabled(false);
     }
@@ -1148,6 +1730,23 @@ final class MapboxMapController
     this.trackCameraPosition = trackCameraPosition;
   }
 
+  @Override
+  public void setAnimatedMarkerPooling(boolean animatedMarkerPooling) {
+    this.animatedMarkerPooling = animatedMarkerPooling;
+  }
+
+  @Override
+  public void setFloatingLabelPooling(boolean floatingLabelPooling) {
+    this.floatingLabelPooling = floatingLabelPooling;
+  }
+
+  @Override
+  public void setCameraMoveThrottle(int maxEventsPerSecond, double zoomDelta, double bearingDelta, double targetDistance) {
+    if (cameraMoveThrottle.configure(maxEventsPerSecond, zoomDelta, bearingDelta, targetDistance)) {
+      cameraMoveThrottle.reset();
+    }
+  }
+
   @Override
   public void setRotateGesturesEnabled(boolean rotateGesturesEnabled) {
     mapboxMap.getUiSettings().setRotateGesturesEnabled(rotateGesturesEnabled);
@@ -1300,54 +1899,7 @@ final class MapboxMapController
    * @return
    */
   private Bitmap getScaledImage(String imageId, float density) {
-    AssetManager assetManager = registrar.context().getAssets();
-    AssetFileDescriptor assetFileDescriptor = null;
-
-    // Split image path into parts.
-    List<String> imagePathList = Arrays.asList(imageId.split("/"));
-    List<String> assetPathList = new ArrayList<>();
-
-    // "On devices with a device pixel ratio of 1.8, the asset .../2.0x/my_icon.png would be chosen.
-    // For a device pixel ratio of 2.7, the asset .../3.0x/my_icon.png would be chosen."
-    // Source: https://flutter.dev/docs/development/ui/assets-and-images#resolution-aware
-    for (int i = (int) Math.ceil(density); i > 0; i--) {
-      String assetPath;
-      if (i == 1) {
-        // If density is 1.0x then simply take the default asset path
-        assetPath = registrar.lookupKeyForAsset(imageId);
-      } else {
-        // Build a resolution aware asset path as follows:
-        // <directory asset>/<ratio>/<image name>
-        // where ratio is 1.0x, 2.0x or 3.0x.
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int j = 0; j < imagePathList.size() - 1; j++) {
-          stringBuilder.append(imagePathList.get(j));
-          stringBuilder.append("/");
-        }
-        stringBuilder.append(((float) i) + "x");
-        stringBuilder.append("/");
-        stringBuilder.append(imagePathList.get(imagePathList.size()-1));
-        assetPath = registrar.lookupKeyForAsset(stringBuilder.toString());
-      }
-      // Build up a list of resolution aware asset paths.
-      assetPathList.add(assetPath);
-    }
-
-    // Iterate over asset paths and get the highest scaled asset (as a bitmap).
-    Bitmap bitmap = null;
-    for (String assetPath : assetPathList) {
-      try {
-        // Read path (throws exception if doesn't exist).
-        assetFileDescriptor = assetManager.openFd(assetPath);
-        InputStream assetStream = assetFileDescriptor.createInputStream();
-        bitmap = BitmapFactory.decodeStream(assetStream);
-        assetFileDescriptor.close(); // Close for memory
-        break; // If exists, break
-      } catch (IOException e) {
-        // Skip
-      }
-    }
-    return bitmap;
+    return AssetIconCache.getInstance().get(imageId, density, registrar.context().getAssets(), registrar::lookupKeyForAsset);
   }
 
   /**
@@ -42,4 +42,10 @@ interface MapboxMapOptionsSink {
   void setCompassViewMargins(int x, int y);
 
   void setAttributionButtonMargins(int x, int y);
+
+  void setAnimatedMarkerPooling(boolean animatedMarkerPooling);
+
+  void setFloatingLabelPooling(boolean floatingLabelPooling);
+
+  void setCameraMoveThrottle(int maxEventsPerSecond, double zoomDelta, double bearingDelta, double targetDistance);
 }
@@ -44,7 +44,7 @@ public class MapboxMapsPlugin implements Application.ActivityLifecycleCallbacks
 
     MethodChannel methodChannel =
             new MethodChannel(registrar.messenger(), "plugins.flutter.io/mapbox_gl");
-    methodChannel.setMethodCallHandler(new GlobalMethodHandler(registrar));
+    methodChannel.setMethodCallHandler(new GlobalMethodHandler(registrar, methodChannel));
   }
 
   @Override
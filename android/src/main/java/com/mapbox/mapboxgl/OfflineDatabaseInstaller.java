@@ -0,0 +1,308 @@
+package com.mapbox.mapboxgl;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Installs a sideloaded tiles database as the Mapbox offline database without blocking the
+ * main thread.
+ *
+ * The database is copied into a temporary file next to the destination and renamed over it only
+ * once it is complete and verified, so an interrupted copy never leaves a truncated database
+ * behind. An interrupted copy of the same source is resumed on the next install. A stamp file
+ * records the identity and size of the source the installed database came from, so installing
+ * it again is a no-op even after the SDK has written to the database.
+ */
+class OfflineDatabaseInstaller {
+
+    private static final String TAG = OfflineDatabaseInstaller.class.getSimpleName();
+    private static final String DATABASE_NAME = "mbgl-offline.db";
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long TRANSFER_CHUNK = 8 * 1024 * 1024;
+    private static final long PROGRESS_STEP = 1024 * 1024;
+
+    interface Listener {
+        void onProgress(long bytesCopied, long totalBytes);
+
+        /**
+         * @param copied false if the installed database already matched the source
+         */
+        void onInstalled(boolean copied);
+
+        void onError(String code, String message);
+    }
+
+    private static class InstallException extends Exception {
+        final String code;
+
+        InstallException(String code, String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Installs {@code tilesDb}, an absolute file path or a Flutter asset key. When
+     * {@code expectedSha256} is given the copy is hashed and rejected if it doesn't match.
+     * Listener methods are called on the main thread, timed by the shared watchdog.
+     */
+    void install(Context context, String tilesDb, String assetPath, String expectedSha256, Listener listener) {
+        executor.execute(() -> {
+            try {
+                final boolean copied = installSync(context, tilesDb, assetPath, expectedSha256, listener);
+                postToMainThread("installOfflineMapTiles#onInstalled", () -> listener.onInstalled(copied));
+            } catch (InstallException e) {
+                postToMainThread("installOfflineMapTiles#onError", () -> listener.onError(e.code, e.getMessage()));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to install " + tilesDb, e);
+                postToMainThread("installOfflineMapTiles#onError", () -> listener.onError("IO_ERROR", e.getMessage()));
+            }
+        });
+    }
+
+    private boolean installSync(Context context, String tilesDb, String assetPath, String expectedSha256, Listener listener)
+            throws IOException, InstallException {
+        final File filesDir = context.getFilesDir();
+        final File dest = new File(filesDir, DATABASE_NAME);
+        final File stamp = new File(filesDir, DATABASE_NAME + ".stamp");
+        final File temp = new File(filesDir, DATABASE_NAME + ".tmp");
+        final File tempStamp = new File(filesDir, DATABASE_NAME + ".tmp.stamp");
+
+        final File sourceFile = assetPath == null ? new File(tilesDb) : null;
+        if (sourceFile != null && !sourceFile.isFile()) {
+            throw new InstallException("NOT_FOUND", "Tiles database not found: " + tilesDb);
+        }
+        final long total = sourceFile != null ? sourceFile.length() : assetLength(context, assetPath);
+        final String identity = expectedSha256 != null
+                ? "sha256:" + expectedSha256.toLowerCase(Locale.US)
+                : sourceIdentity(context, sourceFile, assetPath);
+
+        // The SDK writes to the database once it is open, so only the source decides whether it is current.
+        final String[] installed = readStamp(stamp);
+        if (installed != null && identity.equals(installed[0]) && Long.parseLong(installed[1]) == total && dest.isFile()) {
+            return false;
+        }
+
+        long offset = 0;
+        final String[] partial = readStamp(tempStamp);
+        if (temp.exists() && partial != null && identity.equals(partial[0])
+                && (total < 0 || temp.length() <= total)) {
+            offset = temp.length();
+        } else {
+            temp.delete();
+            writeStamp(tempStamp, identity, total);
+        }
+
+        final MessageDigest digest = expectedSha256 != null ? sha256() : null;
+        if (digest != null && offset > 0) {
+            hashPrefix(temp, offset, digest);
+        }
+
+        try (FileOutputStream output = new FileOutputStream(temp, offset > 0)) {
+            final FileChannel out = output.getChannel();
+            if (sourceFile != null && digest == null) {
+                transfer(sourceFile, out, offset, total, listener);
+            } else {
+                try (InputStream input = sourceFile != null
+                        ? new FileInputStream(sourceFile)
+                        : context.getAssets().open(assetPath)) {
+                    stream(input, out, offset, total, digest, listener);
+                }
+            }
+            output.getFD().sync();
+        }
+
+        final long written = temp.length();
+        if (total >= 0 && written != total) {
+            temp.delete();
+            tempStamp.delete();
+            throw new InstallException("SIZE_MISMATCH", "Copied " + written + " bytes, expected " + total);
+        }
+        if (digest != null) {
+            final String actual = toHex(digest.digest());
+            if (!actual.equalsIgnoreCase(expectedSha256)) {
+                temp.delete();
+                tempStamp.delete();
+                throw new InstallException("CHECKSUM_MISMATCH", "SHA-256 " + actual + " doesn't match " + expectedSha256);
+            }
+        }
+
+        stamp.delete();
+        if (!temp.renameTo(dest)) {
+            throw new IOException("Unable to move " + temp + " to " + dest);
+        }
+        tempStamp.delete();
+        writeStamp(stamp, identity, total);
+        return true;
+    }
+
+    private void transfer(File source, FileChannel out, long offset, long total, Listener listener) throws IOException {
+        try (FileInputStream input = new FileInputStream(source)) {
+            final FileChannel in = input.getChannel();
+            long position = offset;
+            while (position < total) {
+                final long transferred = in.transferTo(position, Math.min(TRANSFER_CHUNK, total - position), out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                postProgress(listener, position, total);
+            }
+        }
+    }
+
+    private void stream(InputStream input, FileChannel out, long offset, long total, MessageDigest digest, Listener listener)
+            throws IOException {
+        long skipped = 0;
+        while (skipped < offset) {
+            final long n = input.skip(offset - skipped);
+            if (n <= 0) {
+                throw new IOException("Source is shorter than the partial copy");
+            }
+            skipped += n;
+        }
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long position = offset;
+        long lastReported = position;
+        int n;
+        while ((n = input.read(buffer)) != -1) {
+            if (digest != null) {
+                digest.update(buffer, 0, n);
+            }
+            final ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+            while (chunk.hasRemaining()) {
+                out.write(chunk);
+            }
+            position += n;
+            if (position - lastReported >= PROGRESS_STEP) {
+                lastReported = position;
+                postProgress(listener, position, total);
+            }
+        }
+        postProgress(listener, position, total);
+    }
+
+    private void postProgress(Listener listener, long bytesCopied, long totalBytes) {
+        postToMainThread("installOfflineMapTiles#onProgress", () -> listener.onProgress(bytesCopied, totalBytes));
+    }
+
+    private void postToMainThread(String task, Runnable runnable) {
+        mainHandler.post(() -> MainThreadWatchdog.shared().wrap(task, runnable).run());
+    }
+
+    private static void hashPrefix(File file, long length, MessageDigest digest) throws IOException {
+        try (InputStream input = new FileInputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = length;
+            int n;
+            while (remaining > 0 && (n = input.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                digest.update(buffer, 0, n);
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * Identifies the source without reading it: the path, size and modification time of a file,
+     * or the asset key and the app install time, since assets only change with an app update.
+     */
+    private static String sourceIdentity(Context context, File sourceFile, String assetPath) {
+        if (sourceFile != null) {
+            return "file:" + sourceFile.getAbsolutePath() + ":" + sourceFile.length() + ":" + sourceFile.lastModified();
+        }
+        long lastUpdateTime = 0;
+        try {
+            lastUpdateTime = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Unable to read the package update time", e);
+        }
+        return "asset:" + assetPath + ":" + lastUpdateTime;
+    }
+
+    private static long assetLength(Context context, String assetPath) throws InstallException {
+        try (AssetFileDescriptor descriptor = context.getAssets().openFd(assetPath)) {
+            return descriptor.getLength();
+        } catch (IOException e) {
+            // Compressed assets can't be opened as a file descriptor, their size is unknown.
+            try {
+                context.getAssets().open(assetPath).close();
+            } catch (IOException notFound) {
+                throw new InstallException("NOT_FOUND", "Tiles database asset not found: " + assetPath);
+            }
+            return -1;
+        }
+    }
+
+    private static String[] readStamp(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            final String identity = reader.readLine();
+            final String size = reader.readLine();
+            if (identity == null || size == null) {
+                return null;
+            }
+            Long.parseLong(size);
+            return new String[] {identity, size};
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void writeStamp(File file, String identity, long size) throws IOException {
+        final File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            final Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            writer.write(identity + "\n" + size + "\n");
+            writer.flush();
+            output.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Unable to write " + file);
+        }
+    }
+
+    private static MessageDigest sha256() throws InstallException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new InstallException("CHECKSUM_UNAVAILABLE", e.getMessage());
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format(Locale.US, "%02x", b));
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,5 @@
+package com.mapbox.mapboxgl;
+
+interface OnAnimatedMarkerArrivedListener {
+    void onArrived(AnimatedMarker marker);
+}
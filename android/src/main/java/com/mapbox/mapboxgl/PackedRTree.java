@@ -0,0 +1,290 @@
+package com.mapbox.mapboxgl;
+
+import java.util.Arrays;
+
+/**
+ * Static R-tree over item bounding boxes, bulk loaded with Sort-Tile-Recursive packing.
+ *
+ * Items and nodes live in flat arrays, level by level from the leaves up, so the tree costs two
+ * arrays and a search touches no objects. The tree can't be modified; build a new one when the
+ * items change.
+ */
+class PackedRTree {
+
+    private static final int NODE_SIZE = 16;
+
+    interface Visitor {
+        void visit(int item);
+    }
+
+    private final int numItems;
+    /** minX, minY, maxX, maxY of every item, then of every node. */
+    private final double[] boxes;
+    /** Item index for leaf entries, index of the first child box for node entries. */
+    private final int[] indices;
+    /** End of every level in entries, the last level holds the root. */
+    private final int[] levelBounds;
+
+    /**
+     * @param itemBoxes minX, minY, maxX, maxY per item
+     */
+    PackedRTree(double[] itemBoxes) {
+        numItems = itemBoxes.length / 4;
+
+        int count = numItems;
+        int numEntries = count;
+        int levels = 1;
+        do {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            numEntries += count;
+            levels++;
+        } while (count > 1);
+
+        boxes = new double[numEntries * 4];
+        indices = new int[numEntries];
+        levelBounds = new int[levels];
+
+        final int[] order = new int[numItems];
+        for (int i = 0; i < numItems; i++) {
+            order[i] = i;
+        }
+        sortTiles(itemBoxes, order, 0, numItems);
+        for (int i = 0; i < numItems; i++) {
+            System.arraycopy(itemBoxes, order[i] * 4, boxes, i * 4, 4);
+            indices[i] = order[i];
+        }
+
+        int level = 0;
+        int levelStart = 0;
+        int levelEnd = numItems;
+        int position = numItems;
+        levelBounds[level++] = levelEnd;
+        while (levelEnd - levelStart > 1 || level == 1) {
+            for (int child = levelStart; child < levelEnd; child += NODE_SIZE) {
+                double minX = Double.POSITIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+                final int end = Math.min(child + NODE_SIZE, levelEnd);
+                for (int i = child; i < end; i++) {
+                    minX = Math.min(minX, boxes[i * 4]);
+                    minY = Math.min(minY, boxes[i * 4 + 1]);
+                    maxX = Math.max(maxX, boxes[i * 4 + 2]);
+                    maxY = Math.max(maxY, boxes[i * 4 + 3]);
+                }
+                boxes[position * 4] = minX;
+                boxes[position * 4 + 1] = minY;
+                boxes[position * 4 + 2] = maxX;
+                boxes[position * 4 + 3] = maxY;
+                indices[position] = child;
+                position++;
+            }
+            levelStart = levelEnd;
+            levelEnd = position;
+            levelBounds[level++] = levelEnd;
+        }
+    }
+
+    int size() {
+        return numItems;
+    }
+
+    /**
+     * Calls the visitor with every item whose box intersects the query box.
+     */
+    void search(double minX, double minY, double maxX, double maxY, Visitor visitor) {
+        if (numItems == 0) {
+            return;
+        }
+        final int[] stack = new int[levelBounds.length * NODE_SIZE];
+        int stackSize = 0;
+        stack[stackSize++] = boxes.length / 4 - 1;
+
+        while (stackSize > 0) {
+            final int node = stack[--stackSize];
+            final int first = indices[node];
+            final int end = Math.min(first + NODE_SIZE, upperBound(first));
+            final boolean leaves = first < numItems;
+            for (int i = first; i < end; i++) {
+                if (maxX < boxes[i * 4] || maxY < boxes[i * 4 + 1]
+                        || minX > boxes[i * 4 + 2] || minY > boxes[i * 4 + 3]) {
+                    continue;
+                }
+                if (leaves) {
+                    visitor.visit(indices[i]);
+                } else {
+                    stack[stackSize++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Distance from a point to the box of an entry, used to order a best-first search.
+     */
+    interface BoxDistance {
+        double distance(double minX, double minY, double maxX, double maxY);
+    }
+
+    /**
+     * Distance from the query point to an item itself, at least its box distance. Infinity
+     * leaves the item out.
+     */
+    interface ItemDistance {
+        double distance(int item);
+    }
+
+    /**
+     * Returns up to {@code k} items closest to a point, nearest first, no further than
+     * {@code maxDistance}. The distances of the returned items are written to
+     * {@code distancesOut}, which must hold {@code k} values.
+     */
+    int[] nearest(int k, double maxDistance, BoxDistance boxDistance, ItemDistance itemDistance, double[] distancesOut) {
+        if (numItems == 0 || k <= 0) {
+            return new int[0];
+        }
+        final Queue queue = new Queue();
+        final int[] found = new int[k];
+        int count = 0;
+        int node = boxes.length / 4 - 1;
+
+        while (true) {
+            final int first = indices[node];
+            final int end = Math.min(first + NODE_SIZE, upperBound(first));
+            final boolean leaves = first < numItems;
+            for (int i = first; i < end; i++) {
+                final double distance = boxDistance.distance(boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3]);
+                if (distance > maxDistance) {
+                    continue;
+                }
+                if (leaves) {
+                    final double exact = itemDistance.distance(indices[i]);
+                    if (exact <= maxDistance && exact != Double.POSITIVE_INFINITY) {
+                        // Items are queued as negative values, nodes by entry index.
+                        queue.push(-indices[i] - 1, exact);
+                    }
+                } else {
+                    queue.push(i, distance);
+                }
+            }
+
+            while (queue.size > 0 && queue.peekValue() < 0) {
+                final double distance = queue.peekDistance();
+                final int item = -queue.pop() - 1;
+                distancesOut[count] = distance;
+                found[count++] = item;
+                if (count == k) {
+                    return found;
+                }
+            }
+            if (queue.size == 0) {
+                return Arrays.copyOf(found, count);
+            }
+            node = queue.pop();
+        }
+    }
+
+    private int upperBound(int entry) {
+        for (int bound : levelBounds) {
+            if (bound > entry) {
+                return bound;
+            }
+        }
+        return levelBounds[levelBounds.length - 1];
+    }
+
+    /**
+     * Sort-Tile-Recursive ordering: sorts the items by x into vertical slices of about
+     * sqrt(n / NODE_SIZE) nodes each, then every slice by y.
+     */
+    private static void sortTiles(double[] itemBoxes, int[] order, int from, int to) {
+        final int count = to - from;
+        if (count <= NODE_SIZE) {
+            return;
+        }
+        final int nodes = (count + NODE_SIZE - 1) / NODE_SIZE;
+        final int slices = (int) Math.ceil(Math.sqrt(nodes));
+        final int sliceSize = slices * NODE_SIZE;
+
+        sortByCenter(itemBoxes, order, from, to, 0);
+        for (int start = from; start < to; start += sliceSize) {
+            sortByCenter(itemBoxes, order, start, Math.min(start + sliceSize, to), 1);
+        }
+    }
+
+    private static void sortByCenter(double[] itemBoxes, int[] order, int from, int to, int axis) {
+        final Integer[] boxed = new Integer[to - from];
+        for (int i = from; i < to; i++) {
+            boxed[i - from] = order[i];
+        }
+        Arrays.sort(boxed, (a, b) -> Double.compare(
+                itemBoxes[a * 4 + axis] + itemBoxes[a * 4 + axis + 2],
+                itemBoxes[b * 4 + axis] + itemBoxes[b * 4 + axis + 2]));
+        for (int i = from; i < to; i++) {
+            order[i] = boxed[i - from];
+        }
+    }
+
+    /**
+     * Binary min-heap of ints ordered by a double priority.
+     */
+    private static class Queue {
+        private int[] values = new int[64];
+        private double[] priorities = new double[64];
+        int size = 0;
+
+        void push(int value, double priority) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+            }
+            int position = size++;
+            while (position > 0) {
+                final int parent = (position - 1) >> 1;
+                if (priorities[parent] <= priority) {
+                    break;
+                }
+                values[position] = values[parent];
+                priorities[position] = priorities[parent];
+                position = parent;
+            }
+            values[position] = value;
+            priorities[position] = priority;
+        }
+
+        int peekValue() {
+            return values[0];
+        }
+
+        double peekDistance() {
+            return priorities[0];
+        }
+
+        int pop() {
+            final int top = values[0];
+            size--;
+            if (size > 0) {
+                final int value = values[size];
+                final double priority = priorities[size];
+                int position = 0;
+                final int half = size >> 1;
+                while (position < half) {
+                    int child = (position << 1) + 1;
+                    if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                        child++;
+                    }
+                    if (priorities[child] >= priority) {
+                        break;
+                    }
+                    values[position] = values[child];
+                    priorities[position] = priorities[child];
+                    position = child;
+                }
+                values[position] = value;
+                priorities[position] = priority;
+            }
+            return top;
+        }
+    }
+
+}
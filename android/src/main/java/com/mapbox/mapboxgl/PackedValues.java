@@ -0,0 +1,39 @@
+package com.mapbox.mapboxgl;
+
+import java.util.List;
+
+/**
+ * Reads numeric payloads that arrive either packed, as the double[] a Dart Float64List decodes
+ * to, or as a list of boxed numbers. Needs nothing from Android, so the parsing of batch payloads
+ * can be measured on a plain JVM.
+ */
+final class PackedValues {
+
+    private PackedValues() {
+    }
+
+    static double[] toDoubleArray(Object o) {
+        if (o instanceof double[]) {
+            return (double[]) o;
+        }
+        final List<?> data = (List<?>) o;
+        final double[] values = new double[data.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ((Number) data.get(i)).doubleValue();
+        }
+        return values;
+    }
+
+    /**
+     * Returns {@code stride} values for every id, or null unless the ids and values are there
+     * and line up.
+     */
+    static double[] rows(List<?> ids, Object values, int stride) {
+        if (ids == null || values == null) {
+            return null;
+        }
+        final double[] packed = toDoubleArray(values);
+        return packed.length == ids.size() * stride ? packed : null;
+    }
+
+}
@@ -0,0 +1,335 @@
+package com.mapbox.mapboxgl;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.Style;
+import com.mapbox.mapboxsdk.style.layers.CircleLayer;
+import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
+import static com.mapbox.mapboxsdk.style.expressions.Expression.has;
+import static com.mapbox.mapboxsdk.style.expressions.Expression.literal;
+import static com.mapbox.mapboxsdk.style.expressions.Expression.not;
+import static com.mapbox.mapboxsdk.style.expressions.Expression.step;
+import static com.mapbox.mapboxsdk.style.expressions.Expression.stop;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.circleColor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.circleRadius;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconAllowOverlap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconImage;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textAllowOverlap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textColor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textField;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textIgnorePlacement;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textSize;
+
+/**
+ * Shows a large point set through one GeoJSON source, clustered natively.
+ *
+ * The cluster hierarchy is built on a worker thread whenever the points are replaced. When the
+ * camera comes to rest, only the clusters and points of the current zoom inside a padded
+ * viewport are written to the source, and the write is skipped while the viewport stays inside
+ * the area written last at the same zoom. When the map loads a new style the source and layers
+ * are added to it and the viewport is written again.
+ */
+class PointClusterSource {
+
+    private static final String TAG = PointClusterSource.class.getSimpleName();
+
+    private static final String SOURCE_ID = "point-clusters-source";
+    private static final String CLUSTER_LAYER_ID = "point-clusters-layer";
+    private static final String COUNT_LAYER_ID = "point-clusters-count-layer";
+    private static final String POINT_LAYER_ID = "point-clusters-point-layer";
+
+    static final String PROPERTY_ID = "id";
+    static final String PROPERTY_ICON = "icon";
+    static final String PROPERTY_CLUSTER = "cluster";
+    static final String PROPERTY_CLUSTER_ID = "cluster_id";
+    static final String PROPERTY_POINT_COUNT = "point_count";
+    static final String PROPERTY_POINT_COUNT_ABBREVIATED = "point_count_abbreviated";
+
+    /** Share of the viewport added on every side of the area written to the source. */
+    private static final double VIEWPORT_PADDING = 0.5;
+
+    static class Options {
+        int minZoom = 0;
+        int maxZoom = 16;
+        double radius = 60;
+        double extent = 512;
+        int minPoints = 2;
+        String clusterColor = "#51bbd6";
+        String textColor = "#ffffff";
+    }
+
+    /**
+     * The points and their cluster hierarchy, built together off the main thread.
+     */
+    private static class Points {
+        final String[] ids;
+        final JsonObject[] properties;
+        final PointClusterer clusterer;
+
+        Points(String[] ids, JsonObject[] properties, PointClusterer clusterer) {
+            this.ids = ids;
+            this.properties = properties;
+            this.clusterer = clusterer;
+        }
+    }
+
+    interface Callback {
+        void onReady();
+
+        void onError(RuntimeException e);
+    }
+
+    private final MapboxMap mapboxMap;
+    private final MainThreadWatchdog watchdog;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Gson gson = new Gson();
+    /** Callbacks of the setPoints calls that haven't completed yet. */
+    private final Set<Callback> pendingCallbacks = new LinkedHashSet<>();
+    private GeoJsonSource source;
+    private CircleLayer clusterLayer;
+    private SymbolLayer countLayer;
+    private String clusterCircleColor;
+    private String countTextColor;
+
+    private Points points;
+    private int generation = 0;
+    private int writtenZoom = -1;
+    /** West, south, east and north of the area last written to the source. */
+    private double[] writtenBounds;
+
+    PointClusterSource(MapboxMap mapboxMap, Style style, MainThreadWatchdog watchdog) {
+        this.mapboxMap = mapboxMap;
+        this.watchdog = watchdog;
+        attach(style);
+    }
+
+    /**
+     * Adds the source and layers to a newly loaded style and writes the current points into it.
+     */
+    void attach(Style style) {
+        style.addSource(source = new GeoJsonSource(SOURCE_ID));
+        style.addLayer(clusterLayer = new CircleLayer(CLUSTER_LAYER_ID, SOURCE_ID)
+                .withFilter(has(PROPERTY_POINT_COUNT))
+                .withProperties(
+                        circleRadius(step(get(PROPERTY_POINT_COUNT), literal(18f),
+                                stop(100, 24f),
+                                stop(1000, 30f)))
+                ));
+        style.addLayer(countLayer = new SymbolLayer(COUNT_LAYER_ID, SOURCE_ID)
+                .withFilter(has(PROPERTY_POINT_COUNT))
+                .withProperties(
+                        textField(get(PROPERTY_POINT_COUNT_ABBREVIATED)),
+                        textSize(12f),
+                        textIgnorePlacement(true),
+                        textAllowOverlap(true)
+                ));
+        style.addLayer(new SymbolLayer(POINT_LAYER_ID, SOURCE_ID)
+                .withFilter(not(has(PROPERTY_POINT_COUNT)))
+                .withProperties(
+                        iconImage(get(PROPERTY_ICON)),
+                        iconAllowOverlap(true)
+                ));
+        if (clusterCircleColor != null) {
+            clusterLayer.setProperties(circleColor(clusterCircleColor));
+            countLayer.setProperties(textColor(countTextColor));
+        }
+        writtenBounds = null;
+        update();
+    }
+
+    List<String> getLayerIds() {
+        final List<String> layerIds = new ArrayList<>(3);
+        layerIds.add(CLUSTER_LAYER_ID);
+        layerIds.add(COUNT_LAYER_ID);
+        layerIds.add(POINT_LAYER_ID);
+        return layerIds;
+    }
+
+    /**
+     * Replaces the points. The hierarchy is built on the worker thread and the callback runs on
+     * the main thread once the new points are shown, or once newer points replaced them.
+     *
+     * @param coordinates latitude and longitude of every point, interleaved
+     */
+    void setPoints(List<String> ids, double[] coordinates, List<String> icons, List<?> properties,
+                   Options options, Callback callback) {
+        clusterCircleColor = options.clusterColor;
+        countTextColor = options.textColor;
+        clusterLayer.setProperties(circleColor(clusterCircleColor));
+        countLayer.setProperties(textColor(countTextColor));
+
+        final int requested = ++generation;
+        pendingCallbacks.add(callback);
+        executor.execute(() -> {
+            final Points built;
+            try {
+                built = build(ids, coordinates, icons, properties, options);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Unable to cluster points", e);
+                mainHandler.post(watchdog.wrap("clusters#setPoints (failed)", () -> {
+                    pendingCallbacks.remove(callback);
+                    callback.onError(e);
+                }));
+                return;
+            }
+            mainHandler.post(watchdog.wrap("clusters#setPoints (clustered)", () -> {
+                if (requested == generation) {
+                    points = built;
+                    writtenBounds = null;
+                    update();
+                }
+                pendingCallbacks.remove(callback);
+                callback.onReady();
+            }));
+        });
+    }
+
+    void clear() {
+        generation++;
+        points = null;
+        writtenBounds = null;
+        source.setGeoJson(FeatureCollection.fromFeatures(new ArrayList<>()));
+    }
+
+    /**
+     * Writes the clusters and points around the current viewport to the source, called when
+     * the camera comes to rest.
+     */
+    void update() {
+        if (points == null) {
+            return;
+        }
+        final int zoom = (int) Math.floor(mapboxMap.getCameraPosition().zoom);
+        final LatLngBounds visible = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+        if (zoom == writtenZoom && writtenBounds != null && contains(writtenBounds, visible)) {
+            return;
+        }
+
+        final double padLng = (visible.getLonEast() - visible.getLonWest()) * VIEWPORT_PADDING;
+        final double padLat = (visible.getLatNorth() - visible.getLatSouth()) * VIEWPORT_PADDING;
+        final double west = visible.getLonWest() - padLng;
+        final double east = visible.getLonEast() + padLng;
+        final double south = Math.max(-90, visible.getLatSouth() - padLat);
+        final double north = Math.min(90, visible.getLatNorth() + padLat);
+
+        final Points current = points;
+        final List<Feature> features = new ArrayList<>();
+        current.clusterer.getClusters(west, south, east, north, zoom, new PointClusterer.Visitor() {
+            @Override
+            public void visitPoint(int point, double lng, double lat) {
+                features.add(Feature.fromGeometry(Point.fromLngLat(lng, lat), current.properties[point], current.ids[point]));
+            }
+
+            @Override
+            public void visitCluster(int clusterId, int pointCount, double lng, double lat) {
+                final JsonObject properties = new JsonObject();
+                properties.addProperty(PROPERTY_CLUSTER, true);
+                properties.addProperty(PROPERTY_CLUSTER_ID, clusterId);
+                properties.addProperty(PROPERTY_POINT_COUNT, pointCount);
+                properties.addProperty(PROPERTY_POINT_COUNT_ABBREVIATED, abbreviate(pointCount));
+                features.add(Feature.fromGeometry(Point.fromLngLat(lng, lat), properties));
+            }
+        });
+        source.setGeoJson(FeatureCollection.fromFeatures(features));
+
+        writtenZoom = zoom;
+        writtenBounds = new double[] {west, south, east, north};
+    }
+
+    int getClusterExpansionZoom(int clusterId) {
+        return clusterer().getClusterExpansionZoom(clusterId);
+    }
+
+    /**
+     * Returns the ids of the points in a cluster.
+     */
+    List<String> getLeaves(int clusterId, int limit, int offset) {
+        final Points current = points;
+        final int[] leaves = clusterer().getLeaves(clusterId, limit, offset);
+        final List<String> ids = new ArrayList<>(leaves.length);
+        for (int leaf : leaves) {
+            ids.add(current.ids[leaf]);
+        }
+        return ids;
+    }
+
+    /**
+     * Stops clustering. Calls that haven't completed get an error, so no caller waits forever.
+     */
+    void destroy() {
+        executor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+        final List<Callback> callbacks = new ArrayList<>(pendingCallbacks);
+        pendingCallbacks.clear();
+        for (Callback callback : callbacks) {
+            callback.onError(new IllegalStateException("The map was disposed before the points were clustered"));
+        }
+    }
+
+    private PointClusterer clusterer() {
+        if (points == null) {
+            throw new IllegalStateException("No clustered points");
+        }
+        return points.clusterer;
+    }
+
+    private Points build(List<String> ids, double[] coordinates, List<String> icons, List<?> properties, Options options) {
+        final int count = ids.size();
+        final double[] lngLats = new double[count * 2];
+        final JsonObject[] featureProperties = new JsonObject[count];
+        for (int i = 0; i < count; i++) {
+            lngLats[2 * i] = coordinates[2 * i + 1];
+            lngLats[2 * i + 1] = coordinates[2 * i];
+
+            final Object extra = properties != null ? properties.get(i) : null;
+            final JsonObject json = extra instanceof Map ? gson.toJsonTree(extra).getAsJsonObject() : new JsonObject();
+            json.addProperty(PROPERTY_ID, ids.get(i));
+            final String icon = icons != null ? icons.get(i) : null;
+            if (icon != null) {
+                json.addProperty(PROPERTY_ICON, icon);
+            }
+            featureProperties[i] = json;
+        }
+        final PointClusterer clusterer = new PointClusterer(lngLats, options.minZoom, options.maxZoom,
+                options.radius, options.extent, options.minPoints);
+        return new Points(ids.toArray(new String[0]), featureProperties, clusterer);
+    }
+
+    private static boolean contains(double[] outer, LatLngBounds inner) {
+        return inner.getLonWest() >= outer[0] && inner.getLatSouth() >= outer[1]
+                && inner.getLonEast() <= outer[2] && inner.getLatNorth() <= outer[3];
+    }
+
+    private static String abbreviate(int count) {
+        if (count >= 10000) {
+            return Math.round(count / 1000f) + "k";
+        }
+        if (count >= 1000) {
+            final int hundreds = Math.round(count / 100f);
+            return hundreds % 10 == 0 ? (hundreds / 10) + "k" : (hundreds / 10) + "." + (hundreds % 10) + "k";
+        }
+        return String.valueOf(count);
+    }
+
+}
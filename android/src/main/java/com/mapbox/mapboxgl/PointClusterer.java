@@ -0,0 +1,329 @@
+package com.mapbox.mapboxgl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical greedy clustering of points, in the manner of supercluster.
+ *
+ * Points are projected to spherical mercator in [0, 1] and clustered once per zoom level from
+ * maxZoom down to minZoom, each level merging the points and clusters of the level above that
+ * lie within the cluster radius. Every level keeps a KD-tree of its entries, so a viewport or
+ * neighbourhood query at any zoom is a tree lookup. The clusterer is immutable once built and
+ * can be built on any thread.
+ *
+ * A cluster id encodes the index and zoom of the entry it grew from, so children, leaves and the
+ * expansion zoom of a cluster are found without keeping a map of clusters.
+ */
+class PointClusterer {
+
+    interface Visitor {
+        void visitPoint(int point, double lng, double lat);
+
+        void visitCluster(int clusterId, int pointCount, double lng, double lat);
+    }
+
+    /**
+     * Points and clusters of one zoom level, in flat arrays.
+     */
+    private static class Level {
+        final double[] x;
+        final double[] y;
+        final int[] numPoints;
+        /** Point index for points, cluster id for clusters. */
+        final int[] id;
+        /** Id of the cluster the entry was merged into at the zoom below, or -1. */
+        final int[] parentId;
+        /** Lowest zoom the entry has been clustered at. */
+        final int[] zoom;
+        int size = 0;
+        KdTree tree;
+
+        Level(int capacity) {
+            x = new double[capacity];
+            y = new double[capacity];
+            numPoints = new int[capacity];
+            id = new int[capacity];
+            parentId = new int[capacity];
+            zoom = new int[capacity];
+        }
+
+        void add(double x, double y, int numPoints, int id) {
+            this.x[size] = x;
+            this.y[size] = y;
+            this.numPoints[size] = numPoints;
+            this.id[size] = id;
+            this.parentId[size] = -1;
+            this.zoom[size] = Integer.MAX_VALUE;
+            size++;
+        }
+
+        void copy(Level from, int i) {
+            add(from.x[i], from.y[i], from.numPoints[i], from.id[i]);
+        }
+    }
+
+    private final int minZoom;
+    private final int maxZoom;
+    private final double radius;
+    private final double extent;
+    private final int minPoints;
+    private final int pointCount;
+    private final double[] lngLats;
+    /** Levels by zoom, up to maxZoom + 1 which holds the unclustered points. */
+    private final Level[] levels;
+
+    /**
+     * @param lngLats longitude and latitude of every point, interleaved
+     * @param radius cluster radius in pixels
+     * @param extent tile extent the radius is relative to
+     */
+    PointClusterer(double[] lngLats, int minZoom, int maxZoom, double radius, double extent, int minPoints) {
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.radius = radius;
+        this.extent = extent;
+        this.minPoints = minPoints;
+        this.pointCount = lngLats.length / 2;
+        this.lngLats = lngLats;
+
+        levels = new Level[maxZoom + 2];
+        Level level = new Level(pointCount);
+        for (int i = 0; i < pointCount; i++) {
+            level.add(lngX(lngLats[2 * i]), latY(lngLats[2 * i + 1]), 1, i);
+        }
+        level.tree = new KdTree(level.x, level.y, level.size);
+        levels[maxZoom + 1] = level;
+
+        for (int z = maxZoom; z >= minZoom; z--) {
+            level = cluster(level, z);
+            level.tree = new KdTree(level.x, level.y, level.size);
+            levels[z] = level;
+        }
+    }
+
+    int size() {
+        return pointCount;
+    }
+
+    /**
+     * Visits the points and clusters shown at the zoom inside the box, in degrees.
+     */
+    void getClusters(double west, double south, double east, double north, double zoom, Visitor visitor) {
+        double minLng = ((west + 180) % 360 + 360) % 360 - 180;
+        final double minLat = Math.max(-90, Math.min(90, south));
+        double maxLng = east == 180 ? 180 : ((east + 180) % 360 + 360) % 360 - 180;
+        final double maxLat = Math.max(-90, Math.min(90, north));
+
+        if (east - west >= 360) {
+            minLng = -180;
+            maxLng = 180;
+        } else if (minLng > maxLng) {
+            getClusters(minLng, minLat, 180, maxLat, zoom, visitor);
+            getClusters(-180, minLat, maxLng, maxLat, zoom, visitor);
+            return;
+        }
+
+        final Level level = levels[limitZoom(zoom)];
+        level.tree.range(lngX(minLng), latY(maxLat), lngX(maxLng), latY(minLat), i -> visit(level, i, visitor));
+    }
+
+    /**
+     * Visits the points and clusters a cluster splits into at the next zoom.
+     */
+    void getChildren(int clusterId, Visitor visitor) {
+        final int originIndex = originIndex(clusterId);
+        final int originZoom = originZoom(clusterId);
+        final Level level = clusterId >= pointCount && originZoom < levels.length ? levels[originZoom] : null;
+        if (level == null || originIndex < 0 || originIndex >= level.size) {
+            throw new IllegalArgumentException("No cluster with the specified id");
+        }
+
+        final double r = radius / (extent * Math.pow(2, originZoom - 1));
+        final boolean[] found = new boolean[1];
+        level.tree.within(level.x[originIndex], level.y[originIndex], r, i -> {
+            if (level.parentId[i] == clusterId) {
+                found[0] = true;
+                visit(level, i, visitor);
+            }
+        });
+        if (!found[0]) {
+            throw new IllegalArgumentException("No cluster with the specified id");
+        }
+    }
+
+    /**
+     * Returns the indices of the points in a cluster, skipping {@code offset} and returning at
+     * most {@code limit}.
+     */
+    int[] getLeaves(int clusterId, int limit, int offset) {
+        final List<Integer> leaves = new ArrayList<>(Math.min(limit, 256));
+        appendLeaves(leaves, clusterId, limit, offset, 0);
+        final int[] result = new int[leaves.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = leaves.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the zoom at which a cluster splits into more than one child.
+     */
+    int getClusterExpansionZoom(int clusterId) {
+        int expansionZoom = originZoom(clusterId) - 1;
+        while (expansionZoom <= maxZoom) {
+            final List<Integer> children = new ArrayList<>(2);
+            getChildren(clusterId, new Visitor() {
+                @Override
+                public void visitPoint(int point, double lng, double lat) {
+                    children.add(-1);
+                }
+
+                @Override
+                public void visitCluster(int childId, int pointCount, double lng, double lat) {
+                    children.add(childId);
+                }
+            });
+            expansionZoom++;
+            if (children.size() != 1 || children.get(0) < 0) {
+                break;
+            }
+            clusterId = children.get(0);
+        }
+        return expansionZoom;
+    }
+
+    private int appendLeaves(List<Integer> leaves, int clusterId, int limit, int offset, int skipped) {
+        final List<int[]> children = new ArrayList<>();
+        getChildren(clusterId, new Visitor() {
+            @Override
+            public void visitPoint(int point, double lng, double lat) {
+                children.add(new int[] {point, 1});
+            }
+
+            @Override
+            public void visitCluster(int childId, int pointCount, double lng, double lat) {
+                children.add(new int[] {childId, pointCount});
+            }
+        });
+
+        for (int[] child : children) {
+            final int count = child[1];
+            if (count > 1) {
+                if (skipped + count <= offset) {
+                    // Skip the whole cluster.
+                    skipped += count;
+                } else {
+                    skipped = appendLeaves(leaves, child[0], limit, offset, skipped);
+                }
+            } else if (skipped < offset) {
+                skipped++;
+            } else {
+                leaves.add(child[0]);
+            }
+            if (leaves.size() == limit) {
+                break;
+            }
+        }
+        return skipped;
+    }
+
+    private void visit(Level level, int i, Visitor visitor) {
+        if (level.numPoints[i] > 1) {
+            visitor.visitCluster(level.id[i], level.numPoints[i], xLng(level.x[i]), yLat(level.y[i]));
+        } else {
+            final int point = level.id[i];
+            visitor.visitPoint(point, lngLats[2 * point], lngLats[2 * point + 1]);
+        }
+    }
+
+    private Level cluster(Level points, int zoom) {
+        final Level clusters = new Level(points.size);
+        final double r = radius / (extent * Math.pow(2, zoom));
+        final int[] neighbors = new int[points.size];
+        final int[] neighborCount = new int[1];
+
+        for (int i = 0; i < points.size; i++) {
+            if (points.zoom[i] <= zoom) {
+                continue;
+            }
+            points.zoom[i] = zoom;
+
+            neighborCount[0] = 0;
+            points.tree.within(points.x[i], points.y[i], r, n -> neighbors[neighborCount[0]++] = n);
+
+            final int numPointsOrigin = points.numPoints[i];
+            int numPoints = numPointsOrigin;
+            for (int k = 0; k < neighborCount[0]; k++) {
+                final int n = neighbors[k];
+                if (points.zoom[n] > zoom) {
+                    numPoints += points.numPoints[n];
+                }
+            }
+
+            if (numPoints > numPointsOrigin && numPoints >= minPoints) {
+                double wx = points.x[i] * numPointsOrigin;
+                double wy = points.y[i] * numPointsOrigin;
+                final int id = (i << 5) + (zoom + 1) + pointCount;
+                for (int k = 0; k < neighborCount[0]; k++) {
+                    final int n = neighbors[k];
+                    if (points.zoom[n] <= zoom) {
+                        continue;
+                    }
+                    points.zoom[n] = zoom;
+                    wx += points.x[n] * points.numPoints[n];
+                    wy += points.y[n] * points.numPoints[n];
+                    points.parentId[n] = id;
+                }
+                points.parentId[i] = id;
+                clusters.add(wx / numPoints, wy / numPoints, numPoints, id);
+            } else {
+                clusters.copy(points, i);
+                if (numPoints > 1) {
+                    // Too few to cluster, keep the neighbours as they are.
+                    for (int k = 0; k < neighborCount[0]; k++) {
+                        final int n = neighbors[k];
+                        if (points.zoom[n] <= zoom) {
+                            continue;
+                        }
+                        points.zoom[n] = zoom;
+                        clusters.copy(points, n);
+                    }
+                }
+            }
+        }
+        return clusters;
+    }
+
+    private int limitZoom(double zoom) {
+        return Math.max(minZoom, Math.min((int) Math.floor(zoom), maxZoom + 1));
+    }
+
+    private int originIndex(int clusterId) {
+        return (clusterId - pointCount) >> 5;
+    }
+
+    private int originZoom(int clusterId) {
+        return (clusterId - pointCount) % 32;
+    }
+
+    private static double lngX(double lng) {
+        return lng / 360 + 0.5;
+    }
+
+    private static double latY(double lat) {
+        final double sin = Math.sin(lat * Math.PI / 180);
+        final double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+        return y < 0 ? 0 : y > 1 ? 1 : y;
+    }
+
+    private static double xLng(double x) {
+        return (x - 0.5) * 360;
+    }
+
+    private static double yLat(double y) {
+        final double y2 = (180 - y * 360) * Math.PI / 180;
+        return 360 * Math.atan(Math.exp(y2)) / Math.PI - 90;
+    }
+
+}
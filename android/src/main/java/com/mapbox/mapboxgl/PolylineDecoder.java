@@ -0,0 +1,74 @@
+package com.mapbox.mapboxgl;
+
+/**
+ * Decodes Google encoded polylines straight into primitive coordinate arrays, without the
+ * intermediate Point per vertex that LineString.fromPolyline allocates.
+ */
+final class PolylineDecoder {
+
+    private PolylineDecoder() {
+    }
+
+    /**
+     * Returns the number of vertices in the encoded polyline. Every value ends with a chunk that
+     * doesn't have the continuation bit set, and every vertex has two values.
+     */
+    static int count(String encoded) {
+        int values = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            if (encoded.charAt(i) - 63 < 0x20) {
+                values++;
+            }
+        }
+        return values / 2;
+    }
+
+    /**
+     * Decodes the polyline into a route index, with the given precision (5 or 6 digits).
+     */
+    static RouteIndex decode(String encoded, int precision) {
+        final int size = count(encoded);
+        final double[] lats = new double[size];
+        final double[] lngs = new double[size];
+        decode(encoded, precision, lats, lngs);
+        return new RouteIndex(lats, lngs);
+    }
+
+    /**
+     * Decodes the polyline into the arrays, which must hold at least {@link #count} vertices.
+     */
+    static void decode(String encoded, int precision, double[] lats, double[] lngs) {
+        final double factor = Math.pow(10, precision);
+        final int length = encoded.length();
+        int index = 0;
+        int vertex = 0;
+        long lat = 0;
+        long lng = 0;
+
+        while (index < length && vertex < lats.length) {
+            int shift = 0;
+            long result = 0;
+            int b;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20 && index < length);
+            lat += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            shift = 0;
+            result = 0;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20 && index < length);
+            lng += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            lats[vertex] = lat / factor;
+            lngs[vertex] = lng / factor;
+            vertex++;
+        }
+    }
+
+}
@@ -0,0 +1,243 @@
+package com.mapbox.mapboxgl;
+
+import com.mapbox.geojson.Point;
+
+import java.util.Arrays;
+
+/**
+ * Immutable polyline with the cumulative distance of every vertex and the bearing of every
+ * segment computed once, so positions along the route are found by binary search instead of
+ * re-measuring the line.
+ *
+ * Distances are in meters and bearings in degrees within [0, 360), measured the same way as
+ * TurfMeasurement.
+ */
+class RouteIndex {
+
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private final double[] lats;
+    private final double[] lngs;
+    private final double[] cumulative;
+    private final double[] bearings;
+
+    /**
+     * Where a point lies along the route: the distance from the start of the route and the
+     * segment that contains it.
+     */
+    static class Location {
+        final double distance;
+        final int segment;
+
+        Location(double distance, int segment) {
+            this.distance = distance;
+            this.segment = segment;
+        }
+    }
+
+    RouteIndex(double[] lats, double[] lngs) {
+        if (lats.length != lngs.length || lats.length == 0) {
+            throw new IllegalArgumentException("A route needs at least one coordinate");
+        }
+        this.lats = lats;
+        this.lngs = lngs;
+
+        final int size = lats.length;
+        cumulative = new double[size];
+        bearings = new double[Math.max(0, size - 1)];
+        for (int i = 1; i < size; i++) {
+            cumulative[i] = cumulative[i - 1] + distance(lats[i - 1], lngs[i - 1], lats[i], lngs[i]);
+            bearings[i - 1] = bearing(lats[i - 1], lngs[i - 1], lats[i], lngs[i]);
+        }
+    }
+
+    int size() {
+        return lats.length;
+    }
+
+    double length() {
+        return cumulative[cumulative.length - 1];
+    }
+
+    double latitude(int index) {
+        return lats[index];
+    }
+
+    double longitude(int index) {
+        return lngs[index];
+    }
+
+    Point point(int index) {
+        return Point.fromLngLat(lngs[index], lats[index]);
+    }
+
+    /**
+     * Distance from the start of the route to the vertex.
+     */
+    double distanceAt(int index) {
+        return cumulative[index];
+    }
+
+    /**
+     * Bearing of the segment that starts at the vertex.
+     */
+    double bearingOf(int segment) {
+        return bearings.length == 0 ? 0 : bearings[Math.min(segment, bearings.length - 1)];
+    }
+
+    /**
+     * Returns the segment that contains the distance, clamped to the route.
+     */
+    int segmentAt(double distance) {
+        if (bearings.length == 0 || distance <= 0) {
+            return 0;
+        }
+        if (distance >= length()) {
+            return bearings.length - 1;
+        }
+        int index = Arrays.binarySearch(cumulative, distance);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return Math.min(index, bearings.length - 1);
+    }
+
+    Point pointAt(double distance) {
+        if (bearings.length == 0) {
+            return point(0);
+        }
+        final int segment = segmentAt(distance);
+        final double fraction = fractionOf(segment, distance);
+        return Point.fromLngLat(
+                lngs[segment] + (lngs[segment + 1] - lngs[segment]) * fraction,
+                lats[segment] + (lats[segment + 1] - lats[segment]) * fraction
+        );
+    }
+
+    /**
+     * Writes the part of the route between two distances as a GeoJSON LineString, so it can be
+     * handed to a source without creating a Point per vertex.
+     */
+    String toGeoJson(double fromDistance, double toDistance) {
+        final StringBuilder builder = new StringBuilder(32 + size() * 40);
+        builder.append("{\"type\":\"LineString\",\"coordinates\":[");
+        appendPointAt(builder, fromDistance);
+        if (bearings.length > 0) {
+            final int first = segmentAt(fromDistance) + 1;
+            final int last = segmentAt(toDistance);
+            for (int i = first; i <= last; i++) {
+                if (cumulative[i] > fromDistance && cumulative[i] < toDistance) {
+                    builder.append(',');
+                    appendCoordinate(builder, lngs[i], lats[i]);
+                }
+            }
+        }
+        builder.append(',');
+        appendPointAt(builder, toDistance);
+        return builder.append("]}").toString();
+    }
+
+    String toGeoJson() {
+        return toGeoJson(0, length());
+    }
+
+    private void appendPointAt(StringBuilder builder, double distance) {
+        if (bearings.length == 0) {
+            appendCoordinate(builder, lngs[0], lats[0]);
+            return;
+        }
+        final int segment = segmentAt(distance);
+        final double fraction = fractionOf(segment, distance);
+        appendCoordinate(builder,
+                lngs[segment] + (lngs[segment + 1] - lngs[segment]) * fraction,
+                lats[segment] + (lats[segment + 1] - lats[segment]) * fraction);
+    }
+
+    private static void appendCoordinate(StringBuilder builder, double lng, double lat) {
+        builder.append('[').append(lng).append(',').append(lat).append(']');
+    }
+
+    private double fractionOf(int segment, double distance) {
+        final double segmentLength = cumulative[segment + 1] - cumulative[segment];
+        return segmentLength > 0
+                ? Math.max(0, Math.min(1, (distance - cumulative[segment]) / segmentLength))
+                : 0;
+    }
+
+    /**
+     * Projects the coordinate onto the closest segment. With a hint of -1 every segment is
+     * checked; otherwise only segments within {@code window} of the hint are, which is enough to
+     * follow a marker that moves along the route.
+     */
+    Location locate(double lat, double lng, int hint, int window) {
+        if (bearings.length == 0) {
+            return new Location(0, 0);
+        }
+
+        final int from = hint < 0 ? 0 : Math.max(0, hint - window);
+        final int to = hint < 0 ? bearings.length - 1 : Math.min(bearings.length - 1, hint + window);
+
+        // Project on a local equirectangular plane, which is accurate enough at segment scale.
+        final double cosLat = Math.cos(Math.toRadians(lat));
+        int bestSegment = from;
+        double bestFraction = 0;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = from; i <= to; i++) {
+            final double ax = lngs[i] * cosLat;
+            final double ay = lats[i];
+            final double dx = lngs[i + 1] * cosLat - ax;
+            final double dy = lats[i + 1] - ay;
+            final double px = lng * cosLat - ax;
+            final double py = lat - ay;
+            final double lengthSquared = dx * dx + dy * dy;
+            final double fraction = lengthSquared > 0
+                    ? Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared))
+                    : 0;
+            final double ex = px - fraction * dx;
+            final double ey = py - fraction * dy;
+            final double distanceSquared = ex * ex + ey * ey;
+            if (distanceSquared < bestDistance) {
+                bestDistance = distanceSquared;
+                bestSegment = i;
+                bestFraction = fraction;
+            }
+        }
+
+        final double distance = cumulative[bestSegment]
+                + (cumulative[bestSegment + 1] - cumulative[bestSegment]) * bestFraction;
+        return new Location(distance, bestSegment);
+    }
+
+    static double distance(double lat1, double lng1, double lat2, double lng2) {
+        final double dLat = Math.toRadians(lat2 - lat1);
+        final double dLng = Math.toRadians(lng2 - lng1);
+        final double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.pow(Math.sin(dLng / 2), 2) * Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2));
+        return EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    static double bearing(double lat1, double lng1, double lat2, double lng2) {
+        final double phi1 = Math.toRadians(lat1);
+        final double phi2 = Math.toRadians(lat2);
+        final double dLng = Math.toRadians(lng2 - lng1);
+        final double y = Math.sin(dLng) * Math.cos(phi2);
+        final double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLng);
+        final double bearing = Math.toDegrees(Math.atan2(y, x)) % 360;
+        return bearing < 0 ? bearing + 360 : bearing;
+    }
+
+    /**
+     * Signed rotation in degrees, within [-180, 180), that turns {@code from} onto {@code to}
+     * the short way round.
+     */
+    static double shortestRotation(double from, double to) {
+        double delta = (to - from) % 360;
+        if (delta >= 180) {
+            delta -= 360;
+        } else if (delta < -180) {
+            delta += 360;
+        }
+        return delta;
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.mapbox.mapboxgl;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decodes and indexes followLine polylines on a worker thread.
+ *
+ * Decoded routes and target lines are memoised by their encoded polyline, so sending the same
+ * route again only costs locating the marker on it. Results are delivered on the main thread;
+ * callers drop results that a newer request has superseded.
+ */
+class RoutePreparer {
+
+    private static final String TAG = RoutePreparer.class.getSimpleName();
+    private static final int PRECISION = 6;
+    private static final int CACHE_SIZE = 32;
+
+    static class PreparedRoute {
+        final RouteIndex route;
+        final RouteIndex.Location start;
+        final String lineGeoJson;
+        final String targetLineGeoJson;
+
+        PreparedRoute(RouteIndex route, RouteIndex.Location start, String lineGeoJson, String targetLineGeoJson) {
+            this.route = route;
+            this.start = start;
+            this.lineGeoJson = lineGeoJson;
+            this.targetLineGeoJson = targetLineGeoJson;
+        }
+    }
+
+    interface Callback {
+        void onPrepared(PreparedRoute prepared);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, RouteIndex> routes = new LruCache<>(CACHE_SIZE);
+    private final LruCache<String, String> targetLines = new LruCache<>(CACHE_SIZE);
+    private final MainThreadWatchdog watchdog;
+
+    RoutePreparer(MainThreadWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Prepares {@code line} for a marker at the given position: the route index, where the
+     * marker is on it and the remaining route and target line as GeoJSON.
+     */
+    void prepare(String line, String targetLine, double lat, double lng, Callback callback) {
+        executor.execute(() -> {
+            final PreparedRoute prepared;
+            try {
+                final RouteIndex route = route(line);
+                final RouteIndex.Location start = route.locate(lat, lng, -1, 0);
+                prepared = new PreparedRoute(
+                        route,
+                        start,
+                        route.toGeoJson(start.distance, route.length()),
+                        targetLine(targetLine)
+                );
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Unable to prepare route", e);
+                return;
+            }
+            mainHandler.post(watchdog.wrap("animatedRoute#prepared", () -> callback.onPrepared(prepared)));
+        });
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    private RouteIndex route(String line) {
+        RouteIndex route = routes.get(line);
+        if (route == null) {
+            route = PolylineDecoder.decode(line, PRECISION);
+            routes.put(line, route);
+        }
+        return route;
+    }
+
+    private String targetLine(String targetLine) {
+        String geoJson = targetLines.get(targetLine);
+        if (geoJson == null) {
+            geoJson = PolylineDecoder.decode(targetLine, PRECISION).toGeoJson();
+            targetLines.put(targetLine, geoJson);
+        }
+        return geoJson;
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.mapbox.mapboxgl;
+
+import java.util.Arrays;
+
+/**
+ * Timestamped positions, with optional headings, that an {@link AnimatedMarker} plays back
+ * against the wall clock.
+ *
+ * Positions are interpolated linearly between fixes. Headings are interpolated along the
+ * shortest arc when both fixes carry one, otherwise the bearing of the segment is used.
+ */
+class Trajectory {
+
+    /** Values per fix in the packed representation: lat, lng, epoch millis, heading. */
+    static final int STRIDE = 4;
+
+    private final double[] lats;
+    private final double[] lngs;
+    private final long[] times;
+    private final double[] headings;
+    private final long clockOffset;
+
+    private int hint = 0;
+
+    /**
+     * @param packed      lat, lng, epoch milliseconds and heading (NaN when unknown) per fix,
+     *                    ordered by time
+     * @param clockOffset milliseconds to add to the device clock to get the clock of the fixes
+     */
+    Trajectory(double[] packed, long clockOffset) {
+        if (packed.length == 0 || packed.length % STRIDE != 0) {
+            throw new IllegalArgumentException("A trajectory needs " + STRIDE + " values per fix");
+        }
+        final int size = packed.length / STRIDE;
+        lats = new double[size];
+        lngs = new double[size];
+        times = new long[size];
+        headings = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = packed[i * STRIDE];
+            lngs[i] = packed[i * STRIDE + 1];
+            times[i] = (long) packed[i * STRIDE + 2];
+            headings[i] = packed[i * STRIDE + 3];
+            if (i > 0 && times[i] < times[i - 1]) {
+                throw new IllegalArgumentException("Trajectory fixes must be ordered by time");
+            }
+        }
+        this.clockOffset = clockOffset;
+    }
+
+    boolean isFinished(long wallTime) {
+        return wallTime + clockOffset >= times[times.length - 1];
+    }
+
+    /**
+     * Writes the interpolated lat, lng and heading at the wall clock time into {@code out}.
+     * Before the first fix the marker waits on it, after the last one it stays on it.
+     */
+    void sample(long wallTime, double[] out) {
+        final long time = wallTime + clockOffset;
+        final int last = times.length - 1;
+
+        if (last == 0 || time <= times[0]) {
+            write(out, 0, 0);
+            return;
+        }
+        if (time >= times[last]) {
+            write(out, last - 1, 1);
+            return;
+        }
+
+        final int segment = segmentAt(time);
+        final long span = times[segment + 1] - times[segment];
+        write(out, segment, span > 0 ? (time - times[segment]) / (double) span : 1);
+    }
+
+    private int segmentAt(long time) {
+        // Playback moves forward, so the previous segment is almost always the right one.
+        if (times[hint] <= time && time < times[hint + 1]) {
+            return hint;
+        }
+        if (hint + 2 < times.length && times[hint + 1] <= time && time < times[hint + 2]) {
+            return ++hint;
+        }
+        int index = Arrays.binarySearch(times, time);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        // Equal timestamps: continue from the last fix with this time.
+        while (index + 1 < times.length - 1 && times[index + 1] <= time) {
+            index++;
+        }
+        return hint = Math.max(0, Math.min(index, times.length - 2));
+    }
+
+    private void write(double[] out, int segment, double fraction) {
+        if (times.length == 1) {
+            out[0] = lats[0];
+            out[1] = lngs[0];
+            out[2] = headings[0];
+            return;
+        }
+
+        final int next = segment + 1;
+        out[0] = lats[segment] + (lats[next] - lats[segment]) * fraction;
+        out[1] = lngs[segment] + (lngs[next] - lngs[segment]) * fraction;
+
+        if (!Double.isNaN(headings[segment]) && !Double.isNaN(headings[next])) {
+            out[2] = headings[segment] + RouteIndex.shortestRotation(headings[segment], headings[next]) * fraction;
+        } else if (lats[segment] != lats[next] || lngs[segment] != lngs[next]) {
+            out[2] = RouteIndex.bearing(lats[segment], lngs[segment], lats[next], lngs[next]);
+        } else {
+            out[2] = Double.isNaN(headings[next]) ? headings[segment] : headings[next];
+        }
+    }
+
+}
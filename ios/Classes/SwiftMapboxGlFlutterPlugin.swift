@@ -11,10 +11,18 @@ public class SwiftMapboxGlFlutterPlugin: NSObject, FlutterPlugin {
         channel.setMethodCallHandler { (methodCall, result) in
             switch(methodCall.method) {
             case "installOfflineMapTiles":
-                guard let arguments = methodCall.arguments as? [String: String] else { return }
-                let tilesdb = arguments["tilesdb"]
-                installOfflineMapTiles(registrar: registrar, tilesdb: tilesdb!)
-                result(nil)
+                guard let arguments = methodCall.arguments as? [String: Any],
+                    let tilesdb = arguments["tilesdb"] as? String else {
+                    result(FlutterError(code: "INVALID_ARGUMENTS", message: "Expected the tiles database path", details: nil))
+                    return
+                }
+                do {
+                    try installOfflineMapTiles(registrar: registrar, tilesdb: tilesdb)
+                    // The bundled database is always copied, there is no stamp to skip it on.
+                    result(true)
+                } catch let error {
+                    result(FlutterError(code: "IO_ERROR", message: error.localizedDescription, details: nil))
+                }
             default:
                 result(FlutterMethodNotImplemented)
             }
@@ -33,22 +41,26 @@ public class SwiftMapboxGlFlutterPlugin: NSObject, FlutterPlugin {
     }
 
     // Copies the "offline" tiles to where Mapbox expects them
-    private static func installOfflineMapTiles(registrar: FlutterPluginRegistrar, tilesdb: String) {
+    private static func installOfflineMapTiles(registrar: FlutterPluginRegistrar, tilesdb: String) throws {
         var tilesUrl = getTilesUrl()
-        let bundlePath = getTilesDbPath(registrar: registrar, tilesdb: tilesdb)
-        NSLog("Cached tiles not found, copying from bundle... \(String(describing: bundlePath)) ==> \(tilesUrl)")
+        guard let bundlePath = getTilesDbPath(registrar: registrar, tilesdb: tilesdb) else {
+            throw NSError(domain: NSCocoaErrorDomain, code: NSFileNoSuchFileError,
+                          userInfo: [NSLocalizedDescriptionKey: "Tiles database not found: \(tilesdb)"])
+        }
+        NSLog("Cached tiles not found, copying from bundle... \(bundlePath) ==> \(tilesUrl)")
         do {
             let parentDir = tilesUrl.deletingLastPathComponent()
             try FileManager.default.createDirectory(at: parentDir, withIntermediateDirectories: true, attributes: nil)
             if FileManager.default.fileExists(atPath: tilesUrl.path) {
                 try FileManager.default.removeItem(atPath: tilesUrl.path)
             }
-            try FileManager.default.copyItem(atPath: bundlePath!, toPath: tilesUrl.path)
+            try FileManager.default.copyItem(atPath: bundlePath, toPath: tilesUrl.path)
             var resourceValues = URLResourceValues()
             resourceValues.isExcludedFromBackup = true
             try tilesUrl.setResourceValues(resourceValues)
         } catch let error {
             NSLog("Error copying bundled tiles: \(error)")
+            throw error
         }
     }
     
@@ -26,10 +26,28 @@ export 'package:mapbox_gl_platform_interface/mapbox_gl_platform_interface.dart'
         AnimatedMarkerOptions,
         AnimatedGeometry,
         AnimatedRotation,
+        AnimatedMarkerPosition,
+        RouteProgress,
+        TrajectoryPoint,
         FloatingLabel,
         FloatingLabelOptions,
         CameraTargetBounds,
         MinMaxZoomPreference,
+        CameraMoveThrottle,
+        ImageDecodeOptions,
+        ImageDecodeConfig,
+        FeatureQueryOptions,
+        FeatureGeometry,
+        RenderedFeature,
+        RenderedFeaturePage,
+        AnnotationType,
+        AnnotationQueryResult,
+        ClusterPoint,
+        PointClusterOptions,
+        ChannelMetrics,
+        MethodCallMetrics,
+        ChannelEventMetrics,
+        MainThreadStall,
         MapboxStyles,
         MyLocationTrackingMode,
         BitmapDescriptor,
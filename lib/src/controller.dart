@@ -137,6 +137,10 @@ class MapboxMapController extends ChangeNotifier {
         onMapIdle();
       }
     });
+
+    MapboxGlPlatform.getInstance(_id).onMainThreadStallPlatform.add((stall) {
+      _mainThreadStalls.add(stall);
+    });
   }
 
   static Future<MapboxMapController> init(
@@ -175,6 +179,13 @@ class MapboxMapController extends ChangeNotifier {
 
   final OnMapIdleCallback onMapIdle;
 
+  final StreamController<MainThreadStall> _mainThreadStalls =
+      StreamController<MainThreadStall>.broadcast();
+
+  /// Plugin tasks that held the platform main thread for longer than the
+  /// watchdog budget, see [configureMainThreadWatchdog].
+  Stream<MainThreadStall> get onMainThreadStall => _mainThreadStalls.stream;
+
   /// Callbacks to receive tap events for symbols placed on this map.
   final ArgumentCallbacks<Symbol> onSymbolTapped = ArgumentCallbacks<Symbol>();
 
@@ -358,8 +369,30 @@ class MapboxMapController extends ChangeNotifier {
   }
 
 
-  Future<void> destroyAnimatedLine() async {
-    await MapboxGlPlatform.getInstance(_id).destroyAnimatedLine();
+  /// Plays the marker along [points] against the wall clock, replacing any
+  /// running animation or followed line.
+  ///
+  /// The marker waits on the first point until its time and stays on the last
+  /// one afterwards. [clockOffset] is added to the device clock, use it to
+  /// play back points stamped with server time.
+  Future<void> playTrajectory(
+      String animatedMarkerId, List<TrajectoryPoint> points,
+      {Duration clockOffset = Duration.zero}) async {
+    await MapboxGlPlatform.getInstance(_id)
+        .playTrajectory(animatedMarkerId, points, clockOffset);
+  }
+
+  /// Returns how far the marker is along the line it follows, or null if it
+  /// isn't following one.
+  Future<RouteProgress> getRouteProgress(String animatedMarkerId) async {
+    return MapboxGlPlatform.getInstance(_id).getRouteProgress(animatedMarkerId);
+  }
+
+
+  /// Stops the marker with [animatedMarkerId] from following its line and
+  /// removes the line, or does so for every marker if no id is given.
+  Future<void> destroyAnimatedLine([String animatedMarkerId]) async {
+    await MapboxGlPlatform.getInstance(_id).destroyAnimatedLine(animatedMarkerId);
   }
 
 
@@ -420,6 +453,38 @@ class MapboxMapController extends ChangeNotifier {
     notifyListeners();
   }
 
+  /// Adds, updates and removes symbols in one platform call.
+  ///
+  /// The platform side commits each kind of change as a single batch, so a
+  /// diff touching many symbols rebuilds the symbol source once instead of
+  /// once per symbol. The returned [Future] completes with the added symbols
+  /// once listeners have been notified.
+  Future<List<Symbol>> applySymbolDiff({
+    List<SymbolOptions> adds = const <SymbolOptions>[],
+    Map<Symbol, SymbolOptions> updates = const <Symbol, SymbolOptions>{},
+    Iterable<Symbol> removes = const <Symbol>[],
+    List<Map> data,
+  }) async {
+    updates.keys.forEach((s) {
+      assert(_symbols[s.id] == s);
+    });
+    final List<SymbolOptions> effectiveAdds = adds
+        .map((o) => SymbolOptions.defaultOptions.copyWith(o))
+        .toList();
+    final List<String> removeIds = removes.map((s) => s.id).toList();
+
+    final added = await MapboxGlPlatform.getInstance(_id)
+        .applySymbolDiff(effectiveAdds, updates, removeIds, data);
+
+    _symbols.removeWhere((k, s) => removeIds.contains(k));
+    updates.forEach((symbol, changes) {
+      symbol.options = symbol.options.copyWith(changes);
+    });
+    added.forEach((s) => _symbols[s.id] = s);
+    notifyListeners();
+    return added;
+  }
+
   Future<void> updateAnimatedMarker(AnimatedMarker symbol, AnimatedMarkerOptions changes) async {
     assert(symbol != null);
     assert(_animatedMarkers[symbol.id] == symbol);
@@ -429,6 +494,43 @@ class MapboxMapController extends ChangeNotifier {
     notifyListeners();
   }
 
+  /// Moves many animated markers with a single platform call. Markers that are
+  /// not current members of this controller are ignored on the platform side.
+  Future<void> updateAnimatedMarkersBatch(List<AnimatedMarkerPosition> positions) async {
+    assert(positions != null);
+    await MapboxGlPlatform.getInstance(_id).updateAnimatedMarkersBatch(positions);
+    positions.forEach((p) {
+      final AnimatedMarker marker = _animatedMarkers[p.markerId];
+      if (marker != null) {
+        marker.options = marker.options.copyWith(AnimatedMarkerOptions(
+          geometry: AnimatedGeometry(geometry: p.geometry, duration: p.duration),
+          rotation: p.rotation != null
+              ? AnimatedRotation(rotation: p.rotation, duration: p.duration)
+              : null,
+        ));
+      }
+    });
+    notifyListeners();
+  }
+
+  /// Feeds position fixes, keyed by animated marker id, to the predictive
+  /// mode of the markers.
+  ///
+  /// Between fixes each marker keeps moving along the velocity of its recent
+  /// fixes for up to [maxExtrapolation] past the time of its last fix, and a
+  /// new fix is blended in over [correctionDuration] instead of making the
+  /// marker jump. The time of a fix is when it was taken; [clockOffset] is
+  /// added to the device clock to compare against it. Fixes older than the
+  /// last one of a marker are ignored.
+  Future<void> addPredictedFixes(Map<String, TrajectoryPoint> fixes,
+      {Duration clockOffset = Duration.zero,
+      Duration maxExtrapolation = const Duration(seconds: 3),
+      Duration correctionDuration = const Duration(seconds: 1)}) async {
+    assert(fixes != null);
+    await MapboxGlPlatform.getInstance(_id).addPredictedFixes(
+        fixes, clockOffset, maxExtrapolation, correctionDuration);
+  }
+
   Future<void> updateFloatingLabel(FloatingLabel symbol, FloatingLabelOptions changes) async {
     assert(symbol != null);
     assert(_floatingLabels[symbol.id] == symbol);
@@ -707,6 +809,131 @@ class MapboxMapController extends ChangeNotifier {
         .queryRenderedFeaturesInRect(rect, layerIds, filter);
   }
 
+  /// Queries the rendered features at [point], or within [rect] when no
+  /// point is given, and returns only what [options] asks for.
+  ///
+  /// Use this instead of [queryRenderedFeatures] for dense layers: ids,
+  /// selected properties and bounding boxes or centroids are much smaller
+  /// than full GeoJSON features, and [FeatureQueryOptions.limit] and
+  /// [FeatureQueryOptions.offset] page through the hits.
+  /// [filterId] refers to a filter added with [registerFilter] and takes
+  /// precedence over [filter].
+  Future<RenderedFeaturePage> queryRenderedFeaturesPage(
+      {Point<double> point,
+      Rect rect,
+      List<String> layerIds = const <String>[],
+      List<Object> filter,
+      String filterId,
+      FeatureQueryOptions options = const FeatureQueryOptions()}) async {
+    assert(point != null || rect != null);
+    return MapboxGlPlatform.getInstance(_id).queryRenderedFeaturesPage(
+        point, rect, layerIds, filter, options, filterId);
+  }
+
+  /// Compiles [filter] once and keeps it under [filterId], so queries can
+  /// refer to it by id instead of sending the expression every time.
+  ///
+  /// Filters sent with a query are cached too, this only saves sending and
+  /// hashing them.
+  Future<void> registerFilter(String filterId, List<Object> filter) {
+    return MapboxGlPlatform.getInstance(_id).registerFilter(filterId, filter);
+  }
+
+  Future<void> unregisterFilter(String filterId) {
+    return MapboxGlPlatform.getInstance(_id).unregisterFilter(filterId);
+  }
+
+  /// Returns hit, miss and eviction counts of the compiled filter cache, and
+  /// the number of registered filters (Android only).
+  Future<Map<String, int>> getFilterCacheStats() {
+    return MapboxGlPlatform.getInstance(_id).getFilterCacheStats();
+  }
+
+  /// Returns the symbols, lines, circles and animated markers that intersect
+  /// [bounds], optionally only those of the given [types].
+  ///
+  /// The query runs against a native index of the annotation geometries, so
+  /// it doesn't depend on what is currently rendered.
+  Future<AnnotationQueryResult> queryAnnotationsInBounds(LatLngBounds bounds,
+      {List<AnnotationType> types}) {
+    return MapboxGlPlatform.getInstance(_id)
+        .queryAnnotationsInBounds(bounds, types);
+  }
+
+  /// Returns the annotations within [radius] meters of [center], with their
+  /// distances.
+  Future<AnnotationQueryResult> queryAnnotationsInRadius(
+      LatLng center, double radius,
+      {List<AnnotationType> types}) {
+    return MapboxGlPlatform.getInstance(_id)
+        .queryAnnotationsInRadius(center, radius, types);
+  }
+
+  /// Returns up to [k] annotations nearest to [center], nearest first, no
+  /// further than [maxDistance] meters when given.
+  Future<AnnotationQueryResult> queryNearestAnnotations(LatLng center, int k,
+      {double maxDistance, List<AnnotationType> types}) {
+    return MapboxGlPlatform.getInstance(_id)
+        .queryNearestAnnotations(center, k, maxDistance, types);
+  }
+
+  /// Shows [points] clustered by zoom level, replacing any clustered points
+  /// shown before.
+  ///
+  /// The points are clustered natively off the main thread and drawn from a
+  /// single source that only holds the clusters and points around the
+  /// viewport, which is refreshed when the camera comes to rest. This scales
+  /// to many more points than adding them as symbols (Android only).
+  ///
+  /// Clusters carry `cluster_id` and `point_count` properties. The returned
+  /// future completes with the ids of the cluster, count and point layers,
+  /// for use with [queryRenderedFeatures].
+  Future<List<String>> setClusterPoints(List<ClusterPoint> points,
+      {PointClusterOptions options = const PointClusterOptions()}) {
+    return MapboxGlPlatform.getInstance(_id).setClusterPoints(points, options);
+  }
+
+  Future<void> clearClusterPoints() {
+    return MapboxGlPlatform.getInstance(_id).clearClusterPoints();
+  }
+
+  /// Returns the zoom at which the cluster with [clusterId] splits up.
+  Future<int> getClusterExpansionZoom(int clusterId) {
+    return MapboxGlPlatform.getInstance(_id).getClusterExpansionZoom(clusterId);
+  }
+
+  /// Returns the ids of the points in the cluster with [clusterId], at most
+  /// [limit] after skipping [offset].
+  Future<List<String>> getClusterLeaves(int clusterId,
+      {int limit = 10, int offset = 0}) {
+    return MapboxGlPlatform.getInstance(_id)
+        .getClusterLeaves(clusterId, limit, offset);
+  }
+
+  /// Returns call counts, payload sizes and main thread latencies of the
+  /// method channel of this map per method, and counts of the events it sent
+  /// (Android only).
+  ///
+  /// With [reset] the metrics start over after this snapshot.
+  Future<ChannelMetrics> getChannelMetrics({bool reset = false}) {
+    return MapboxGlPlatform.getInstance(_id).getChannelMetrics(reset);
+  }
+
+  /// Turns the main thread watchdog on or off (Android only).
+  ///
+  /// While on, every method call, frame callback and decode continuation of
+  /// the plugin that holds the main thread for longer than [budgetMillis] is
+  /// logged and reported on [onMainThreadStall] with its name and payload
+  /// size. With [captureStacks] the report also carries the main thread
+  /// stack sampled when the budget elapsed.
+  Future<void> configureMainThreadWatchdog(
+      {bool enabled = true,
+      double budgetMillis = 8,
+      bool captureStacks = false}) {
+    return MapboxGlPlatform.getInstance(_id)
+        .configureMainThreadWatchdog(enabled, budgetMillis, captureStacks);
+  }
+
   Future invalidateAmbientCache() async {
     return MapboxGlPlatform.getInstance(_id).invalidateAmbientCache();
   }
@@ -727,6 +954,8 @@ class MapboxMapController extends ChangeNotifier {
   ///
   /// This allows you to add an image to the currently displayed style once, and from there on refer to it e.g. in the [Symbol.iconImage] anytime you add a [Symbol] later on.
   /// Set [sdf] to true if the image you add is an SDF image.
+  /// [decodeOptions] can downsample the image or decode it without alpha.
+  /// On Android the image is decoded off the main thread.
   /// Returns after the image has successfully been added to the style.
   /// Note: This can only be called after OnStyleLoadedCallback has been invoked and any added images will have to be re-added if a new style is loaded.
   ///
@@ -758,8 +987,19 @@ class MapboxMapController extends ChangeNotifier {
   ///  );
   /// }
   /// ```
-  Future<void> addImage(String name, Uint8List bytes, [bool sdf = false]) {
-    return MapboxGlPlatform.getInstance(_id).addImage(name, bytes, sdf);
+  Future<void> addImage(String name, Uint8List bytes,
+      [bool sdf = false, ImageDecodeOptions decodeOptions]) {
+    return MapboxGlPlatform.getInstance(_id)
+        .addImage(name, bytes, sdf, decodeOptions);
+  }
+
+  /// Returns the counters of the native cache of asset icons that are loaded
+  /// when the style references an image it doesn't have: `hits`, `misses`,
+  /// `evictions`, `entries`, `sizeBytes` and `maxSizeBytes`.
+  ///
+  /// The cache is shared by all maps and is only available on Android.
+  Future<Map<String, int>> getImageCacheStats() {
+    return MapboxGlPlatform.getInstance(_id).getImageCacheStats();
   }
 
   /// For more information on what this does, see https://docs.mapbox.com/help/troubleshooting/optimize-map-label-placement/#label-collision
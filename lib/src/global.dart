@@ -5,15 +5,66 @@
 part of mapbox_gl;
 
 final MethodChannel _globalChannel =
-    MethodChannel('plugins.flutter.io/mapbox_gl');
+    MethodChannel('plugins.flutter.io/mapbox_gl')
+      ..setMethodCallHandler(_handleGlobalMethodCall);
+
+/// Called while a tiles database is copied by [installOfflineMapTiles].
+/// [totalBytes] is -1 when the size of the source is not known up front.
+typedef void OfflineTilesProgressCallback(int bytesCopied, int totalBytes);
+
+final Map<String, List<OfflineTilesProgressCallback>> _installProgressCallbacks =
+    <String, List<OfflineTilesProgressCallback>>{};
+
+Future<dynamic> _handleGlobalMethodCall(MethodCall call) async {
+  switch (call.method) {
+    case 'installOfflineMapTiles#onProgress':
+      final String tilesDb = call.arguments['tilesdb'];
+      final List<OfflineTilesProgressCallback> callbacks =
+          _installProgressCallbacks[tilesDb];
+      if (callbacks != null) {
+        final int bytesCopied = call.arguments['bytesCopied'];
+        final int totalBytes = call.arguments['totalBytes'];
+        for (final OfflineTilesProgressCallback callback in callbacks) {
+          callback(bytesCopied, totalBytes);
+        }
+      }
+      break;
+    default:
+      throw MissingPluginException();
+  }
+}
 
 /// Copy tiles db file passed in to the tiles cache directory (sideloaded) to
 /// make tiles available offline.
-Future<void> installOfflineMapTiles(String tilesDb) async {
-  await _globalChannel.invokeMethod(
-    'installOfflineMapTiles',
-    <String, dynamic>{
-      'tilesdb': tilesDb,
-    },
-  );
+///
+/// On Android the copy runs off the main thread and replaces the installed
+/// database only once it is complete. If [sha256] is given the copy is
+/// verified against it. Installing the same source again is skipped; the
+/// returned future completes with false in that case and true after a copy.
+/// [onProgress] is called while the database is copied.
+Future<bool> installOfflineMapTiles(String tilesDb,
+    {String sha256, OfflineTilesProgressCallback onProgress}) async {
+  if (onProgress != null) {
+    _installProgressCallbacks
+        .putIfAbsent(tilesDb, () => <OfflineTilesProgressCallback>[])
+        .add(onProgress);
+  }
+  final Map<String, dynamic> arguments = <String, dynamic>{
+    'tilesdb': tilesDb,
+  };
+  if (sha256 != null) {
+    arguments['sha256'] = sha256;
+  }
+  try {
+    return await _globalChannel.invokeMethod('installOfflineMapTiles', arguments);
+  } finally {
+    if (onProgress != null) {
+      final List<OfflineTilesProgressCallback> callbacks =
+          _installProgressCallbacks[tilesDb];
+      callbacks.remove(onProgress);
+      if (callbacks.isEmpty) {
+        _installProgressCallbacks.remove(tilesDb);
+      }
+    }
+  }
 }
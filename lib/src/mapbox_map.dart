@@ -36,6 +36,9 @@ class MapboxMap extends StatefulWidget {
     this.onCameraIdle,
     this.onCameraMoveStarted,
     this.onMapIdle,
+    this.animatedMarkerPooling = true,
+    this.floatingLabelPooling = true,
+    this.cameraMoveThrottle = CameraMoveThrottle.unthrottled,
   }) : assert(initialCameraPosition != null);
 
 
@@ -90,6 +93,10 @@ class MapboxMap extends StatefulWidget {
   /// will notify it's listeners and you can then get the new MapboxMapController.cameraPosition.
   final bool trackCameraPosition;
 
+  /// Limits the rate of camera move notifications while [trackCameraPosition]
+  /// is enabled (Android only).
+  final CameraMoveThrottle cameraMoveThrottle;
+
   /// True if a "My Location" layer should be shown on the map.
   ///
   /// This layer includes a location indicator at the current device location,
@@ -133,6 +140,14 @@ class MapboxMap extends StatefulWidget {
   /// Set the layout margins for the Mapbox Attribution Buttons
   final Point attributionButtonMargins;
 
+  /// True if animated markers should be rendered as features of one shared
+  /// source and layer instead of a source and layer per marker (Android only).
+  final bool animatedMarkerPooling;
+
+  /// True if floating labels should be rendered as features of one shared
+  /// source instead of sources and layers per label (Android only).
+  final bool floatingLabelPooling;
+
   /// Which gestures should be consumed by the map.
   ///
   /// It is possible for other gesture recognizers to be competing with the map on pointer
@@ -252,6 +267,9 @@ class _MapboxMapOptions {
     this.compassViewPosition,
     this.compassViewMargins,
     this.attributionButtonMargins,
+    this.animatedMarkerPooling,
+    this.floatingLabelPooling,
+    this.cameraMoveThrottle,
   });
 
   static _MapboxMapOptions fromWidget(MapboxMap map) {
@@ -272,6 +290,9 @@ class _MapboxMapOptions {
       compassViewPosition: map.compassViewPosition,
       compassViewMargins: map.compassViewMargins,
       attributionButtonMargins: map.attributionButtonMargins,
+      animatedMarkerPooling: map.animatedMarkerPooling,
+      floatingLabelPooling: map.floatingLabelPooling,
+      cameraMoveThrottle: map.cameraMoveThrottle,
     );
   }
 
@@ -307,6 +328,12 @@ class _MapboxMapOptions {
 
   final Point attributionButtonMargins;
 
+  final bool animatedMarkerPooling;
+
+  final bool floatingLabelPooling;
+
+  final CameraMoveThrottle cameraMoveThrottle;
+
   Map<String, dynamic> toMap() {
     final Map<String, dynamic> optionsMap = <String, dynamic>{};
 
@@ -341,6 +368,9 @@ class _MapboxMapOptions {
     addIfNonNull('compassViewMargins', pointToArray(compassViewMargins));
     addIfNonNull(
         'attributionButtonMargins', pointToArray(attributionButtonMargins));
+    addIfNonNull('animatedMarkerPooling', animatedMarkerPooling);
+    addIfNonNull('floatingLabelPooling', floatingLabelPooling);
+    addIfNonNull('cameraMoveThrottle', cameraMoveThrottle?.toJson());
     return optionsMap;
   }
 
@@ -20,4 +20,9 @@ part 'src/floating_label.dart';
 part 'src/bitmap_descriptor.dart';
 part 'src/viewport_settings.dart';
 part 'src/ui.dart';
+part 'src/feature_query.dart';
+part 'src/annotation_query.dart';
+part 'src/point_cluster.dart';
+part 'src/channel_metrics.dart';
+part 'src/main_thread_stall.dart';
 part 'src/mapbox_gl_platform_interface.dart';
@@ -38,6 +38,67 @@ class AnimatedRotation {
   }
 }
 
+/// A single entry of a batched animated marker position update.
+///
+/// When [rotation] is null the marker keeps its current rotation.
+class AnimatedMarkerPosition {
+  const AnimatedMarkerPosition({
+    @required this.markerId,
+    @required this.geometry,
+    @required this.duration,
+    this.rotation,
+  });
+
+  final String markerId;
+  final LatLng geometry;
+  final Duration duration;
+  final double rotation;
+}
+
+/// A timestamped position of a trajectory played back by
+/// [MapboxMapController.playTrajectory].
+///
+/// When [heading] is null the marker faces along its direction of travel.
+class TrajectoryPoint {
+  const TrajectoryPoint({
+    @required this.geometry,
+    @required this.time,
+    this.heading,
+  });
+
+  final LatLng geometry;
+  final DateTime time;
+  final double heading;
+}
+
+/// How far an animated marker is along the line it follows, see
+/// [MapboxMapController.followLine]. Distances are in meters.
+class RouteProgress {
+  const RouteProgress({
+    this.distanceTravelled,
+    this.distanceRemaining,
+    this.segmentIndex,
+    this.routeLength,
+  });
+
+  final double distanceTravelled;
+  final double distanceRemaining;
+  final int segmentIndex;
+  final double routeLength;
+
+  static RouteProgress fromJson(Map<dynamic, dynamic> json) {
+    if (json == null) {
+      return null;
+    }
+    return RouteProgress(
+      distanceTravelled: json['distanceTravelled'],
+      distanceRemaining: json['distanceRemaining'],
+      segmentIndex: json['segmentIndex'],
+      routeLength: json['routeLength'],
+    );
+  }
+}
+
 class AnimatedMarkerOptions {
   const AnimatedMarkerOptions({
     this.iconImage,
@@ -0,0 +1,43 @@
+part of mapbox_gl_platform_interface;
+
+/// Kinds of annotations that can be found with an annotation query.
+///
+/// The order matches the type codes sent by the platform.
+enum AnnotationType {
+  symbol,
+  line,
+  circle,
+  animatedMarker,
+}
+
+/// Annotations found by an annotation query, in matching order.
+///
+/// Nearest queries are sorted by distance, nearest first.
+class AnnotationQueryResult {
+  const AnnotationQueryResult({this.ids, this.types, this.distances});
+
+  final List<String> ids;
+
+  final List<AnnotationType> types;
+
+  /// Distance in meters from the query point to every annotation, null for
+  /// bounds queries.
+  final List<double> distances;
+
+  int get length => ids.length;
+
+  static List<String> typesToJson(List<AnnotationType> types) {
+    return types?.map(describeEnum)?.toList();
+  }
+
+  static AnnotationQueryResult fromJson(Map<dynamic, dynamic> json) {
+    final List<dynamic> ids = json['ids'];
+    final List<int> types = json['types'];
+    final List<double> distances = json['distances'];
+    return AnnotationQueryResult(
+      ids: ids.cast<String>(),
+      types: types.map((type) => AnnotationType.values[type]).toList(),
+      distances: distances,
+    );
+  }
+}
@@ -0,0 +1,82 @@
+part of mapbox_gl_platform_interface;
+
+/// Traffic of one incoming method channel call, see [ChannelMetrics].
+///
+/// Latencies are the time the call held the platform main thread, and are
+/// in microseconds. Percentiles are read from a histogram and accurate to
+/// within 25%. Payload sizes are estimates of the encoded arguments.
+class MethodCallMetrics {
+  const MethodCallMetrics({
+    this.count,
+    this.totalMicros,
+    this.maxMicros,
+    this.p50Micros,
+    this.p95Micros,
+    this.p99Micros,
+    this.payloadBytes,
+    this.maxPayloadBytes,
+  });
+
+  final int count;
+  final int totalMicros;
+  final int maxMicros;
+  final int p50Micros;
+  final int p95Micros;
+  final int p99Micros;
+  final int payloadBytes;
+  final int maxPayloadBytes;
+
+  static MethodCallMetrics fromJson(Map<dynamic, dynamic> json) {
+    return MethodCallMetrics(
+      count: json['count'],
+      totalMicros: json['totalMicros'],
+      maxMicros: json['maxMicros'],
+      p50Micros: json['p50Micros'],
+      p95Micros: json['p95Micros'],
+      p99Micros: json['p99Micros'],
+      payloadBytes: json['payloadBytes'],
+      maxPayloadBytes: json['maxPayloadBytes'],
+    );
+  }
+}
+
+/// Traffic of one kind of event sent by the platform, such as
+/// `camera#onMove`.
+class ChannelEventMetrics {
+  const ChannelEventMetrics({this.count, this.payloadBytes});
+
+  final int count;
+  final int payloadBytes;
+
+  static ChannelEventMetrics fromJson(Map<dynamic, dynamic> json) {
+    return ChannelEventMetrics(
+      count: json['count'],
+      payloadBytes: json['payloadBytes'],
+    );
+  }
+}
+
+/// Method channel traffic of a map by method name, since the map was
+/// created or the metrics were last reset.
+class ChannelMetrics {
+  const ChannelMetrics({this.calls, this.events, this.elapsed});
+
+  final Map<String, MethodCallMetrics> calls;
+
+  final Map<String, ChannelEventMetrics> events;
+
+  /// Time the metrics were collected over.
+  final Duration elapsed;
+
+  static ChannelMetrics fromJson(Map<dynamic, dynamic> json) {
+    final Map<dynamic, dynamic> calls = json['calls'];
+    final Map<dynamic, dynamic> events = json['events'];
+    return ChannelMetrics(
+      calls: calls.map((key, value) =>
+          MapEntry(key as String, MethodCallMetrics.fromJson(value))),
+      events: events.map((key, value) =>
+          MapEntry(key as String, ChannelEventMetrics.fromJson(value))),
+      elapsed: Duration(milliseconds: json['elapsedMillis']),
+    );
+  }
+}
@@ -0,0 +1,132 @@
+part of mapbox_gl_platform_interface;
+
+/// How much of the geometry of a queried feature is returned.
+enum FeatureGeometry {
+  /// No geometry.
+  none,
+
+  /// The bounding box of the geometry, see [RenderedFeature.bounds].
+  bbox,
+
+  /// The mean of the vertices of the geometry, see [RenderedFeature.centroid].
+  centroid,
+
+  /// The complete geometry as GeoJSON, see [RenderedFeature.geometry].
+  full,
+}
+
+/// Limits what a rendered feature query returns, to keep the reply small for
+/// dense layers.
+///
+/// Hits are paged: [offset] skips that many hits and [limit] caps the number
+/// returned. The total number of hits is reported in
+/// [RenderedFeaturePage.total].
+class FeatureQueryOptions {
+  const FeatureQueryOptions({
+    this.idsOnly = false,
+    this.properties,
+    this.geometry = FeatureGeometry.full,
+    this.limit,
+    this.offset = 0,
+  });
+
+  /// Return only the id of every feature.
+  final bool idsOnly;
+
+  /// Property keys to return, all properties when null and none when empty.
+  final List<String> properties;
+
+  final FeatureGeometry geometry;
+
+  final int limit;
+
+  final int offset;
+
+  dynamic toJson() {
+    final Map<String, dynamic> json = <String, dynamic>{
+      'idsOnly': idsOnly,
+      'geometry': describeEnum(geometry),
+      'offset': offset,
+    };
+    if (properties != null) {
+      json['properties'] = properties;
+    }
+    if (limit != null) {
+      json['limit'] = limit;
+    }
+    return json;
+  }
+}
+
+/// A feature returned by a rendered feature query with [FeatureQueryOptions].
+///
+/// Only the parts asked for by the options are set.
+class RenderedFeature {
+  const RenderedFeature({
+    this.id,
+    this.properties,
+    this.bounds,
+    this.centroid,
+    this.geometry,
+  });
+
+  final String id;
+
+  final Map<String, dynamic> properties;
+
+  final LatLngBounds bounds;
+
+  final LatLng centroid;
+
+  /// The geometry as a GeoJSON geometry object.
+  final Map<String, dynamic> geometry;
+
+  static RenderedFeature fromJson(dynamic json) {
+    if (json is String || json == null) {
+      return RenderedFeature(id: json);
+    }
+    final Map<dynamic, dynamic> map = json;
+    final List<double> bbox = map['bbox'];
+    final List<double> centroid = map['centroid'];
+    return RenderedFeature(
+      id: map['id'],
+      properties: map['properties'] == null
+          ? null
+          : Map<String, dynamic>.from(map['properties']),
+      bounds: bbox == null
+          ? null
+          : LatLngBounds(
+              southwest: LatLng(bbox[1], bbox[0]),
+              northeast: LatLng(bbox[3], bbox[2]),
+            ),
+      centroid: centroid == null ? null : LatLng(centroid[1], centroid[0]),
+      geometry: map['geometry'] == null
+          ? null
+          : Map<String, dynamic>.from(map['geometry']),
+    );
+  }
+}
+
+/// One page of the hits of a rendered feature query.
+class RenderedFeaturePage {
+  const RenderedFeaturePage({this.features, this.total, this.offset});
+
+  final List<RenderedFeature> features;
+
+  /// Number of hits of the query, over all pages.
+  final int total;
+
+  /// Index of the first feature of this page among all hits.
+  final int offset;
+
+  bool get hasMore => offset + features.length < total;
+
+  static RenderedFeaturePage fromJson(Map<dynamic, dynamic> json) {
+    final List<dynamic> features = json['features'];
+    return RenderedFeaturePage(
+      features: features.map(RenderedFeature.fromJson).toList(),
+      total: json['total'],
+      offset: json['offset'],
+    );
+  }
+}
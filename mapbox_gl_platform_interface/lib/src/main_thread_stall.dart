@@ -0,0 +1,43 @@
+part of mapbox_gl_platform_interface;
+
+/// A plugin task that held the platform main thread for longer than the
+/// watchdog budget, see [MapboxMapController.configureMainThreadWatchdog].
+class MainThreadStall {
+  const MainThreadStall({
+    this.task,
+    this.payloadBytes,
+    this.duration,
+    this.budget,
+    this.stack,
+  });
+
+  /// Method name of the call, or name of the frame or callback task.
+  final String task;
+
+  /// Estimated size of the call arguments, 0 for tasks without arguments.
+  final int payloadBytes;
+
+  final Duration duration;
+
+  final Duration budget;
+
+  /// Stack of the main thread once the budget had elapsed, null unless
+  /// stack capture is on.
+  final List<String> stack;
+
+  static MainThreadStall fromJson(Map<dynamic, dynamic> json) {
+    final List<dynamic> stack = json['stack'];
+    return MainThreadStall(
+      task: json['task'],
+      payloadBytes: json['payloadBytes'],
+      duration: Duration(microseconds: json['durationMicros']),
+      budget: Duration(microseconds: json['budgetMicros']),
+      stack: stack?.cast<String>(),
+    );
+  }
+
+  @override
+  String toString() =>
+      'MainThreadStall($task, ${duration.inMicroseconds / 1000} ms, '
+      '$payloadBytes bytes)';
+}
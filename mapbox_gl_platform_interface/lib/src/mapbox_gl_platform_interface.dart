@@ -64,6 +64,9 @@ abstract class MapboxGlPlatform {
 
   final ArgumentCallbacks<void> onMapIdlePlatform = ArgumentCallbacks<void>();
 
+  final ArgumentCallbacks<MainThreadStall> onMainThreadStallPlatform =
+      ArgumentCallbacks<MainThreadStall>();
+
   Future<void> initPlatform(int id) async {
     throw UnimplementedError('initPlatform() has not been implemented.');
   }
@@ -119,7 +122,16 @@ abstract class MapboxGlPlatform {
     throw UnimplementedError('addSymbols() has not been implemented.');
   }
 
-  Future<void> destroyAnimatedLine() async {
+  Future<void> playTrajectory(String markerId, List<TrajectoryPoint> points,
+      Duration clockOffset) async {
+    throw UnimplementedError('playTrajectory() has not been implemented.');
+  }
+
+  Future<RouteProgress> getRouteProgress(String markerId) async {
+    throw UnimplementedError('getRouteProgress() has not been implemented.');
+  }
+
+  Future<void> destroyAnimatedLine([String markerId]) async {
     throw UnimplementedError('addSymbols() has not been implemented.');
   }
 
@@ -143,6 +155,16 @@ abstract class MapboxGlPlatform {
     throw UnimplementedError('updateSymbol() has not been implemented.');
   }
 
+  Future<void> updateAnimatedMarkersBatch(List<AnimatedMarkerPosition> positions) async {
+    throw UnimplementedError('updateAnimatedMarkersBatch() has not been implemented.');
+  }
+
+  Future<void> addPredictedFixes(Map<String, TrajectoryPoint> fixes,
+      Duration clockOffset, Duration maxExtrapolation,
+      Duration correctionDuration) async {
+    throw UnimplementedError('addPredictedFixes() has not been implemented.');
+  }
+
   Future<void> updateFloatingLabel(FloatingLabel symbol, FloatingLabelOptions changes) async {
     throw UnimplementedError('updateFloatingLabel() has not been implemented.');
   }
@@ -151,6 +173,12 @@ abstract class MapboxGlPlatform {
     throw UnimplementedError('updateSymbol() has not been implemented.');
   }
 
+  Future<List<Symbol>> applySymbolDiff(List<SymbolOptions> adds,
+      Map<Symbol, SymbolOptions> updates, Iterable<String> removeIds,
+      [List<Map> data]) async {
+    throw UnimplementedError('applySymbolDiff() has not been implemented.');
+  }
+
   Future<void> removeSymbols(Iterable<String> symbolsIds) async {
     throw UnimplementedError('removeSymbol() has not been implemented.');
   }
@@ -211,6 +239,73 @@ abstract class MapboxGlPlatform {
         'queryRenderedFeaturesInRect() has not been implemented.');
   }
 
+  Future<RenderedFeaturePage> queryRenderedFeaturesPage(Point<double> point,
+      Rect rect, List<String> layerIds, List<Object> filter,
+      FeatureQueryOptions options, [String filterId]) async {
+    throw UnimplementedError(
+        'queryRenderedFeaturesPage() has not been implemented.');
+  }
+
+  Future<void> registerFilter(String filterId, List<Object> filter) async {
+    throw UnimplementedError('registerFilter() has not been implemented.');
+  }
+
+  Future<void> unregisterFilter(String filterId) async {
+    throw UnimplementedError('unregisterFilter() has not been implemented.');
+  }
+
+  Future<Map<String, int>> getFilterCacheStats() async {
+    throw UnimplementedError(
+        'getFilterCacheStats() has not been implemented.');
+  }
+
+  Future<AnnotationQueryResult> queryAnnotationsInBounds(
+      LatLngBounds bounds, List<AnnotationType> types) async {
+    throw UnimplementedError(
+        'queryAnnotationsInBounds() has not been implemented.');
+  }
+
+  Future<AnnotationQueryResult> queryAnnotationsInRadius(
+      LatLng center, double radius, List<AnnotationType> types) async {
+    throw UnimplementedError(
+        'queryAnnotationsInRadius() has not been implemented.');
+  }
+
+  Future<AnnotationQueryResult> queryNearestAnnotations(LatLng center, int k,
+      double maxDistance, List<AnnotationType> types) async {
+    throw UnimplementedError(
+        'queryNearestAnnotations() has not been implemented.');
+  }
+
+  Future<List<String>> setClusterPoints(
+      List<ClusterPoint> points, PointClusterOptions options) async {
+    throw UnimplementedError('setClusterPoints() has not been implemented.');
+  }
+
+  Future<void> clearClusterPoints() async {
+    throw UnimplementedError('clearClusterPoints() has not been implemented.');
+  }
+
+  Future<int> getClusterExpansionZoom(int clusterId) async {
+    throw UnimplementedError(
+        'getClusterExpansionZoom() has not been implemented.');
+  }
+
+  Future<List<String>> getClusterLeaves(
+      int clusterId, int limit, int offset) async {
+    throw UnimplementedError('getClusterLeaves() has not been implemented.');
+  }
+
+  Future<ChannelMetrics> getChannelMetrics(bool reset) async {
+    throw UnimplementedError('getChannelMetrics() has not been implemented.');
+  }
+
+  Future<void> configureMainThreadWatchdog(
+      bool enabled, double budgetMillis, bool captureStacks) async {
+    throw UnimplementedError(
+        'configureMainThreadWatchdog() has not been implemented.');
+  }
+
   Future invalidateAmbientCache() async {
     throw UnimplementedError(
         'invalidateAmbientCache() has not been implemented.');
@@ -226,10 +321,15 @@ abstract class MapboxGlPlatform {
   }
 
   Future<void> addImage(String name, Uint8List bytes,
-      [bool sdf = false]) async {
+      [bool sdf = false, ImageDecodeOptions decodeOptions]) async {
     throw UnimplementedError('addImage() has not been implemented.');
   }
 
+  Future<Map<String, int>> getImageCacheStats() async {
+    throw UnimplementedError(
+        'getImageCacheStats() has not been implemented.');
+  }
+
   Future<void> setSymbolIconAllowOverlap(bool enable) async {
     throw UnimplementedError(
         'setSymbolIconAllowOverlap() has not been implemented.');
@@ -3,6 +3,41 @@ part of mapbox_gl_platform_interface;
 class MethodChannelMapboxGl extends MapboxGlPlatform {
   MethodChannel _channel;
 
+  /// Whether geometry is sent to and read from the platform as packed
+  /// [Float64List]s of latitude/longitude pairs instead of nested lists.
+  ///
+  /// Only the Android implementation understands the packed form, so this
+  /// has no effect on other platforms.
+  static bool useBinaryGeometry = true;
+
+  bool get _binaryGeometry =>
+      useBinaryGeometry && defaultTargetPlatform == TargetPlatform.android;
+
+  static Float64List _packLatLngs(List<LatLng> latLngs) {
+    final Float64List packed = Float64List(latLngs.length * 2);
+    for (int i = 0; i < latLngs.length; i++) {
+      packed[i * 2] = latLngs[i].latitude;
+      packed[i * 2 + 1] = latLngs[i].longitude;
+    }
+    return packed;
+  }
+
+  static List<LatLng> _unpackLatLngs(Float64List packed) {
+    final List<LatLng> latLngs = <LatLng>[];
+    for (int i = 0; i + 1 < packed.length; i += 2) {
+      latLngs.add(LatLng(packed[i], packed[i + 1]));
+    }
+    return latLngs;
+  }
+
+  dynamic _lineOptionsToJson(LineOptions options) {
+    final dynamic json = options.toJson();
+    if (_binaryGeometry && options.geometry != null) {
+      json['geometry'] = _packLatLngs(options.geometry);
+    }
+    return json;
+  }
+
   Future<dynamic> _handleMethodCall(MethodCall call) async {
     switch (call.method) {
       case 'infoWindow#onTap':
@@ -70,6 +105,9 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
       case 'map#onIdle':
         onMapIdlePlatform(null);
         break;
+      case 'debug#onMainThreadStall':
+        onMainThreadStallPlatform(MainThreadStall.fromJson(call.arguments));
+        break;
       default:
         throw MissingPluginException();
     }
@@ -194,10 +232,44 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
   }
 
   @override
-  Future<void> destroyAnimatedLine() async {
+  Future<void> playTrajectory(String markerId, List<TrajectoryPoint> points,
+      Duration clockOffset) async {
+    final Float64List packed = Float64List(points.length * 4);
+    for (int i = 0; i < points.length; i++) {
+      final TrajectoryPoint point = points[i];
+      packed[i * 4] = point.geometry.latitude;
+      packed[i * 4 + 1] = point.geometry.longitude;
+      packed[i * 4 + 2] = point.time.millisecondsSinceEpoch.toDouble();
+      packed[i * 4 + 3] = point.heading ?? double.nan;
+    }
+    await _channel.invokeMethod(
+      'custom#playTrajectory',
+      <String, dynamic>{
+        'markerId': markerId,
+        'points': packed,
+        'clockOffset': clockOffset.inMilliseconds,
+      },
+    );
+  }
+
+  @override
+  Future<RouteProgress> getRouteProgress(String markerId) async {
+    final Map<dynamic, dynamic> reply = await _channel.invokeMethod(
+      'custom#getRouteProgress',
+      <String, dynamic>{
+        'markerId': markerId,
+      },
+    );
+    return RouteProgress.fromJson(reply);
+  }
+
+  @override
+  Future<void> destroyAnimatedLine([String markerId]) async {
     await _channel.invokeMethod(
       'custom#destroyAnimatedLine',
-      <String, dynamic>{},
+      <String, dynamic>{
+        'markerId': markerId,
+      },
     );
   }
 
@@ -259,10 +331,22 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
   @override
   Future<List<Symbol>> addSymbols(List<SymbolOptions> options,
       [List<Map> data]) async {
+    final List<dynamic> json = options.map((o) => o.toJson()).toList();
+    Float64List geometries;
+    if (_binaryGeometry) {
+      geometries = Float64List(options.length * 2);
+      for (int i = 0; i < options.length; i++) {
+        final LatLng geometry = options[i].geometry;
+        geometries[i * 2] = geometry?.latitude ?? double.nan;
+        geometries[i * 2 + 1] = geometry?.longitude ?? double.nan;
+        json[i].remove('geometry');
+      }
+    }
     final List<dynamic> symbolIds = await _channel.invokeMethod(
       'symbols#addAll',
       <String, dynamic>{
-        'options': options.map((o) => o.toJson()).toList(),
+        'options': json,
+        'geometries': geometries,
       },
     );
     final List<Symbol> symbols = symbolIds
@@ -279,9 +363,53 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
 
   @override
   Future<void> updateAnimatedMarker(AnimatedMarker symbol, AnimatedMarkerOptions changes) async {
+    final dynamic json = changes.toJson();
+    if (_binaryGeometry && json['geometry'] != null) {
+      json['geometry'] = Float64List.fromList(json['geometry']);
+    }
     await _channel.invokeMethod('custom#updateAnimatedMarker', <String, dynamic>{
       'symbol': symbol.id,
-      'options': changes.toJson(),
+      'options': json,
+    });
+  }
+
+  @override
+  Future<void> updateAnimatedMarkersBatch(List<AnimatedMarkerPosition> positions) async {
+    final List<String> ids = List<String>(positions.length);
+    final Float64List values = Float64List(positions.length * 4);
+    for (int i = 0; i < positions.length; i++) {
+      final AnimatedMarkerPosition position = positions[i];
+      ids[i] = position.markerId;
+      values[i * 4] = position.geometry.latitude;
+      values[i * 4 + 1] = position.geometry.longitude;
+      values[i * 4 + 2] = position.duration.inMilliseconds.toDouble();
+      values[i * 4 + 3] = position.rotation ?? double.nan;
+    }
+    await _channel.invokeMethod('custom#updateAnimatedMarkersBatch', <String, dynamic>{
+      'ids': ids,
+      'values': values,
+    });
+  }
+
+  @override
+  Future<void> addPredictedFixes(Map<String, TrajectoryPoint> fixes,
+      Duration clockOffset, Duration maxExtrapolation,
+      Duration correctionDuration) async {
+    final List<String> ids = fixes.keys.toList();
+    final Float64List values = Float64List(ids.length * 4);
+    for (int i = 0; i < ids.length; i++) {
+      final TrajectoryPoint fix = fixes[ids[i]];
+      values[i * 4] = fix.geometry.latitude;
+      values[i * 4 + 1] = fix.geometry.longitude;
+      values[i * 4 + 2] = fix.time.millisecondsSinceEpoch.toDouble();
+      values[i * 4 + 3] = fix.heading ?? double.nan;
+    }
+    await _channel.invokeMethod('custom#addPredictedFixes', <String, dynamic>{
+      'ids': ids,
+      'values': values,
+      'clockOffset': clockOffset.inMilliseconds,
+      'maxExtrapolation': maxExtrapolation.inMilliseconds,
+      'correctionDuration': correctionDuration.inMilliseconds,
     });
   }
 
@@ -301,6 +429,33 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
     });
   }
 
+  @override
+  Future<List<Symbol>> applySymbolDiff(List<SymbolOptions> adds,
+      Map<Symbol, SymbolOptions> updates, Iterable<String> removeIds,
+      [List<Map> data]) async {
+    final List<dynamic> symbolIds = await _channel.invokeMethod(
+      'symbols#applyDiff',
+      <String, dynamic>{
+        'adds': adds.map((o) => o.toJson()).toList(),
+        'updates': updates.entries
+            .map((e) => <String, dynamic>{
+                  'symbol': e.key.id,
+                  'options': e.value.toJson(),
+                })
+            .toList(),
+        'removes': removeIds.toList(),
+      },
+    );
+    return symbolIds
+        .asMap()
+        .map((i, id) => MapEntry(
+            i,
+            Symbol(id, adds.elementAt(i),
+                data != null && data.length > i ? data.elementAt(i) : null)))
+        .values
+        .toList();
+  }
+
   @override
   Future<LatLng> getSymbolLatLng(Symbol symbol) async {
     Map mapLatLng =
@@ -338,7 +493,7 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
     final String lineId = await _channel.invokeMethod(
       'line#add',
       <String, dynamic>{
-        'options': options.toJson(),
+        'options': _lineOptionsToJson(options),
       },
     );
     return Line(lineId, options, data);
@@ -348,16 +503,21 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
   Future<void> updateLine(Line line, LineOptions changes) async {
     await _channel.invokeMethod('line#update', <String, dynamic>{
       'line': line.id,
-      'options': changes.toJson(),
+      'options': _lineOptionsToJson(changes),
     });
   }
 
   @override
   Future<List<LatLng>> getLineLatLngs(Line line) async {
-    List latLngList =
+    final dynamic reply =
         await _channel.invokeMethod('line#getGeometry', <String, dynamic>{
       'line': line._id,
+      'packed': _binaryGeometry,
     });
+    if (reply is Float64List) {
+      return _unpackLatLngs(reply);
+    }
+    List latLngList = reply;
     List<LatLng> resultList = [];
     for (var latLng in latLngList) {
       resultList.add(LatLng(latLng['latitude'], latLng['longitude']));
@@ -447,6 +607,160 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
     }
   }
 
+  @override
+  Future<RenderedFeaturePage> queryRenderedFeaturesPage(Point<double> point,
+      Rect rect, List<String> layerIds, List<Object> filter,
+      FeatureQueryOptions options, [String filterId]) async {
+    final Map<String, Object> arguments = <String, Object>{
+      'layerIds': layerIds,
+      'filter': filter,
+      'filterId': filterId,
+      'options': options.toJson(),
+    };
+    if (point != null) {
+      arguments['x'] = point.x;
+      arguments['y'] = point.y;
+    } else {
+      arguments['left'] = rect.left;
+      arguments['top'] = rect.top;
+      arguments['right'] = rect.right;
+      arguments['bottom'] = rect.bottom;
+    }
+    try {
+      final Map<Object, Object> reply = await _channel.invokeMethod(
+          'map#queryRenderedFeatures', arguments);
+      return RenderedFeaturePage.fromJson(reply);
+    } on PlatformException catch (e) {
+      return new Future.error(e);
+    }
+  }
+
+  @override
+  Future<void> registerFilter(String filterId, List<Object> filter) async {
+    try {
+      await _channel.invokeMethod('map#registerFilter', <String, Object>{
+        'filterId': filterId,
+        'filter': filter,
+      });
+    } on PlatformException catch (e) {
+      return new Future.error(e);
+    }
+  }
+
+  @override
+  Future<void> unregisterFilter(String filterId) async {
+    await _channel.invokeMethod('map#unregisterFilter', <String, Object>{
+      'filterId': filterId,
+    });
+  }
+
+  @override
+  Future<Map<String, int>> getFilterCacheStats() async {
+    final Map<Object, Object> reply =
+        await _channel.invokeMethod('map#getFilterCacheStats');
+    return reply.map((key, value) => MapEntry(key as String, value as int));
+  }
+
+  @override
+  Future<AnnotationQueryResult> queryAnnotationsInBounds(
+      LatLngBounds bounds, List<AnnotationType> types) async {
+    final Map<dynamic, dynamic> reply =
+        await _channel.invokeMethod('annotations#queryBounds', <String, Object>{
+      'south': bounds.southwest.latitude,
+      'west': bounds.southwest.longitude,
+      'north': bounds.northeast.latitude,
+      'east': bounds.northeast.longitude,
+      'types': AnnotationQueryResult.typesToJson(types),
+    });
+    return AnnotationQueryResult.fromJson(reply);
+  }
+
+  @override
+  Future<AnnotationQueryResult> queryAnnotationsInRadius(
+      LatLng center, double radius, List<AnnotationType> types) async {
+    final Map<dynamic, dynamic> reply =
+        await _channel.invokeMethod('annotations#queryRadius', <String, Object>{
+      'latitude': center.latitude,
+      'longitude': center.longitude,
+      'radius': radius,
+      'types': AnnotationQueryResult.typesToJson(types),
+    });
+    return AnnotationQueryResult.fromJson(reply);
+  }
+
+  @override
+  Future<AnnotationQueryResult> queryNearestAnnotations(LatLng center, int k,
+      double maxDistance, List<AnnotationType> types) async {
+    final Map<dynamic, dynamic> reply = await _channel
+        .invokeMethod('annotations#queryNearest', <String, Object>{
+      'latitude': center.latitude,
+      'longitude': center.longitude,
+      'k': k,
+      'maxDistance': maxDistance,
+      'types': AnnotationQueryResult.typesToJson(types),
+    });
+    return AnnotationQueryResult.fromJson(reply);
+  }
+
+  @override
+  Future<List<String>> setClusterPoints(
+      List<ClusterPoint> points, PointClusterOptions options) async {
+    final bool hasIcons = points.any((point) => point.icon != null);
+    final bool hasProperties = points.any((point) => point.properties != null);
+    final List<dynamic> layerIds =
+        await _channel.invokeMethod('clusters#setPoints', <String, dynamic>{
+      'ids': points.map((point) => point.id).toList(),
+      'coordinates':
+          _packLatLngs(points.map((point) => point.position).toList()),
+      'icons': hasIcons ? points.map((point) => point.icon).toList() : null,
+      'properties': hasProperties
+          ? points.map((point) => point.properties).toList()
+          : null,
+      'options': options.toJson(),
+    });
+    return layerIds.cast<String>();
+  }
+
+  @override
+  Future<void> clearClusterPoints() async {
+    await _channel.invokeMethod('clusters#clear');
+  }
+
+  @override
+  Future<int> getClusterExpansionZoom(int clusterId) async {
+    return await _channel.invokeMethod(
+        'clusters#getExpansionZoom', <String, dynamic>{'clusterId': clusterId});
+  }
+
+  @override
+  Future<List<String>> getClusterLeaves(
+      int clusterId, int limit, int offset) async {
+    final List<dynamic> ids =
+        await _channel.invokeMethod('clusters#getLeaves', <String, dynamic>{
+      'clusterId': clusterId,
+      'limit': limit,
+      'offset': offset,
+    });
+    return ids.cast<String>();
+  }
+
+  @override
+  Future<ChannelMetrics> getChannelMetrics(bool reset) async {
+    final Map<dynamic, dynamic> reply = await _channel
+        .invokeMethod('debug#metrics', <String, dynamic>{'reset': reset});
+    return ChannelMetrics.fromJson(reply);
+  }
+
+  @override
+  Future<void> configureMainThreadWatchdog(
+      bool enabled, double budgetMillis, bool captureStacks) async {
+    await _channel.invokeMethod('debug#configureWatchdog', <String, dynamic>{
+      'enabled': enabled,
+      'budgetMillis': budgetMillis,
+      'captureStacks': captureStacks,
+    });
+  }
+
   @override
   Future invalidateAmbientCache() async {
     try {
@@ -497,19 +811,27 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
 
   @override
   Future<void> addImage(String name, Uint8List bytes,
-      [bool sdf = false]) async {
+      [bool sdf = false, ImageDecodeOptions decodeOptions]) async {
     try {
       return await _channel.invokeMethod('style#addImage', <String, Object>{
         "name": name,
         "bytes": bytes,
         "length": bytes.length,
-        "sdf": sdf
+        "sdf": sdf,
+        "decodeOptions": decodeOptions?.toJson(),
       });
     } on PlatformException catch (e) {
       return new Future.error(e);
     }
   }
 
+  @override
+  Future<Map<String, int>> getImageCacheStats() async {
+    final Map<Object, Object> reply =
+        await _channel.invokeMethod('style#getImageCacheStats');
+    return reply.map((key, value) => MapEntry(key as String, value as int));
+  }
+
   @override
   Future<void> setSymbolIconAllowOverlap(bool enable) async {
     try {
@@ -563,6 +885,9 @@ class MethodChannelMapboxGl extends MapboxGlPlatform {
     final Map<Object, Object> reply = await _channel.invokeMethod('custom#getLabelAnchor', <String, dynamic>{
       'id': id,
     });
+    if (reply == null) {
+      return null;
+    }
 
     final dynamic l = reply['location'];
 
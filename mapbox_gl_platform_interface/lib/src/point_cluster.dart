@@ -0,0 +1,67 @@
+part of mapbox_gl_platform_interface;
+
+/// A point of a clustered point set, see
+/// [MapboxMapController.setClusterPoints].
+class ClusterPoint {
+  const ClusterPoint(this.id, this.position, {this.icon, this.properties});
+
+  final String id;
+
+  final LatLng position;
+
+  /// Name of a style image to show the point with when it isn't clustered.
+  final String icon;
+
+  /// Extra feature properties of the point, for data-driven styling and
+  /// rendered feature queries.
+  final Map<String, dynamic> properties;
+}
+
+/// Clustering and appearance of a clustered point set.
+///
+/// [radius] is in pixels at the tile size of the map. Points are clustered
+/// from [minZoom] up to [maxZoom] and shown unclustered above it. A cluster
+/// holds at least [minPoints] points.
+class PointClusterOptions {
+  const PointClusterOptions({
+    this.minZoom = 0,
+    this.maxZoom = 16,
+    this.radius = 60,
+    this.minPoints = 2,
+    this.clusterColor,
+    this.textColor,
+  });
+
+  final int minZoom;
+
+  final int maxZoom;
+
+  final double radius;
+
+  final int minPoints;
+
+  /// Color of the cluster circles, as a CSS color string.
+  final String clusterColor;
+
+  /// Color of the cluster point counts, as a CSS color string.
+  final String textColor;
+
+  dynamic toJson() {
+    final Map<String, dynamic> json = <String, dynamic>{
+      'minZoom': minZoom,
+      'maxZoom': maxZoom,
+      'radius': radius,
+      'minPoints': minPoints,
+    };
+
+    void addIfPresent(String fieldName, dynamic value) {
+      if (value != null) {
+        json[fieldName] = value;
+      }
+    }
+
+    addIfPresent('clusterColor', clusterColor);
+    addIfPresent('textColor', textColor);
+    return json;
+  }
+}
@@ -139,3 +139,102 @@ class MinMaxZoomPreference {
     return 'MinMaxZoomPreference(minZoom: $minZoom, maxZoom: $maxZoom)';
   }
 }
+
+/// Limits how often camera#onMove events are delivered while
+/// [MapboxMap.trackCameraPosition] is enabled.
+///
+/// An event is delivered when at most [maxEventsPerSecond] events have been
+/// sent in the last second and, if any delta is set, the zoom, bearing or
+/// target (in meters) changed by at least that delta since the last event.
+/// The final position is always delivered when the camera becomes idle.
+/// Null values disable the corresponding limit.
+class CameraMoveThrottle {
+  const CameraMoveThrottle({
+    this.maxEventsPerSecond,
+    this.zoomDelta,
+    this.bearingDelta,
+    this.targetDistance,
+  });
+
+  final int maxEventsPerSecond;
+
+  final double zoomDelta;
+
+  final double bearingDelta;
+
+  final double targetDistance;
+
+  /// Every camera move is delivered.
+  static const CameraMoveThrottle unthrottled = CameraMoveThrottle();
+
+  dynamic toJson() => <dynamic>[
+        maxEventsPerSecond ?? 0,
+        zoomDelta ?? 0.0,
+        bearingDelta ?? 0.0,
+        targetDistance ?? 0.0,
+      ];
+
+  @override
+  bool operator ==(dynamic other) {
+    if (identical(this, other)) return true;
+    if (runtimeType != other.runtimeType) return false;
+    final CameraMoveThrottle typedOther = other;
+    return maxEventsPerSecond == typedOther.maxEventsPerSecond &&
+        zoomDelta == typedOther.zoomDelta &&
+        bearingDelta == typedOther.bearingDelta &&
+        targetDistance == typedOther.targetDistance;
+  }
+
+  @override
+  int get hashCode =>
+      hashValues(maxEventsPerSecond, zoomDelta, bearingDelta, targetDistance);
+
+  @override
+  String toString() {
+    return 'CameraMoveThrottle(maxEventsPerSecond: $maxEventsPerSecond, '
+        'zoomDelta: $zoomDelta, bearingDelta: $bearingDelta, '
+        'targetDistance: $targetDistance)';
+  }
+}
+
+/// Pixel format used when decoding an image added with
+/// [MapboxMapController.addImage].
+enum ImageDecodeConfig {
+  /// 32 bits per pixel, with alpha.
+  argb8888,
+
+  /// 16 bits per pixel, without alpha. Halves the memory of opaque images.
+  rgb565,
+}
+
+/// Controls how the native side decodes an image before adding it to the
+/// style.
+///
+/// When [targetWidth] or [targetHeight] is set the image is subsampled by the
+/// largest power of two that keeps it at least that large, in pixels.
+class ImageDecodeOptions {
+  const ImageDecodeOptions({
+    this.targetWidth,
+    this.targetHeight,
+    this.config = ImageDecodeConfig.argb8888,
+  });
+
+  final int targetWidth;
+
+  final int targetHeight;
+
+  final ImageDecodeConfig config;
+
+  dynamic toJson() {
+    final Map<String, dynamic> json = <String, dynamic>{
+      'config': config == ImageDecodeConfig.rgb565 ? 'rgb565' : 'argb8888',
+    };
+    if (targetWidth != null) {
+      json['targetWidth'] = targetWidth;
+    }
+    if (targetHeight != null) {
+      json['targetHeight'] = targetHeight;
+    }
+    return json;
+  }
+}
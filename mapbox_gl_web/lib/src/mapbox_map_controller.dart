@@ -278,7 +278,7 @@ class MapboxMapController extends MapboxGlPlatform
 
   @override
   Future<void> addImage(String name, Uint8List bytes,
-      [bool sdf = false]) async {
+      [bool sdf = false, ImageDecodeOptions decodeOptions]) async {
     final photo = decodeImage(bytes);
     if (!_map.hasImage(name)) {
       _map.addImage(